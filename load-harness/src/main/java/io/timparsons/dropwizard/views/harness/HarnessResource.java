@@ -0,0 +1,31 @@
+package io.timparsons.dropwizard.views.harness;
+
+import java.util.List;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+@Path("/harness")
+@Produces(MediaType.TEXT_HTML)
+public class HarnessResource {
+
+    private final List<String> keys;
+
+    public HarnessResource(List<String> keys) {
+        this.keys = keys;
+    }
+
+    @GET
+    @Path("/ftl")
+    public HarnessView freemarker() {
+        return new HarnessView("harness.ftl", keys);
+    }
+
+    @GET
+    @Path("/mustache")
+    public HarnessView mustache() {
+        return new HarnessView("harness.mustache", keys);
+    }
+}
@@ -0,0 +1,33 @@
+package io.timparsons.dropwizard.views.harness;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.timparsons.dropwizard.views.LocaleView;
+import io.timparsons.dropwizard.views.config.Bundles;
+import io.timparsons.dropwizard.views.config.LocaleMap;
+import io.timparsons.dropwizard.views.config.LocaleMap.LocaleMapValue;
+
+@Bundles(SyntheticCatalog.BUNDLE)
+public class HarnessView extends LocaleView {
+
+    private final List<String> keys;
+
+    public HarnessView(String templateName, List<String> keys) {
+        super(templateName);
+        this.keys = keys;
+    }
+
+    public LocaleMapValue getTitle() {
+        return getMessageBundle().get(SyntheticCatalog.TITLE_KEY);
+    }
+
+    public List<LocaleMapValue> getMessages() {
+        LocaleMap messageBundle = getMessageBundle();
+        List<LocaleMapValue> messages = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            messages.add(messageBundle.get(key));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,128 @@
+package io.timparsons.dropwizard.views.harness;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every request of a single client so exact percentiles can be
+ * computed once the run is over.
+ */
+public class LatencyRecorder {
+    private static final long[] COLD_START_BUCKETS = { 1, 10, 100, 1000 };
+
+    private final long[] sequences;
+    private final long[] latencies;
+    private final int[] locales;
+    private int count;
+    private int errors;
+
+    public LatencyRecorder(int capacity) {
+        this.sequences = new long[capacity];
+        this.latencies = new long[capacity];
+        this.locales = new int[capacity];
+    }
+
+    public void record(long sequence, int locale, long latencyNanos, boolean success) {
+        sequences[count] = sequence;
+        latencies[count] = latencyNanos;
+        locales[count] = locale;
+        count++;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    public static void report(String name, List<LatencyRecorder> recorders, long wallNanos,
+            LocaleDistribution distribution, PrintStream out) {
+        int total = 0;
+        int errors = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.count;
+            errors += recorder.errors;
+        }
+
+        // count first so every group gets an array of its exact size; sequences are
+        // global, so a cold start bucket never holds more than its width
+        int languages = distribution.getLanguages().size();
+        int[] localeCounts = new int[languages];
+        int[] bucketCounts = new int[COLD_START_BUCKETS.length];
+        for (LatencyRecorder recorder : recorders) {
+            for (int i = 0; i < recorder.count; i++) {
+                localeCounts[recorder.locales[i]]++;
+                int bucket = bucketOf(recorder.sequences[i]);
+                if (bucket >= 0) {
+                    bucketCounts[bucket]++;
+                }
+            }
+        }
+
+        long[] all = new long[total];
+        long[][] byLocale = new long[languages][];
+        for (int i = 0; i < languages; i++) {
+            byLocale[i] = new long[localeCounts[i]];
+        }
+        long[][] bySequence = new long[COLD_START_BUCKETS.length][];
+        for (int b = 0; b < COLD_START_BUCKETS.length; b++) {
+            bySequence[b] = new long[bucketCounts[b]];
+        }
+
+        int index = 0;
+        int[] localeIndexes = new int[languages];
+        int[] bucketIndexes = new int[COLD_START_BUCKETS.length];
+        for (LatencyRecorder recorder : recorders) {
+            for (int i = 0; i < recorder.count; i++) {
+                long latency = recorder.latencies[i];
+                int locale = recorder.locales[i];
+                all[index++] = latency;
+                byLocale[locale][localeIndexes[locale]++] = latency;
+                int bucket = bucketOf(recorder.sequences[i]);
+                if (bucket >= 0) {
+                    bySequence[bucket][bucketIndexes[bucket]++] = latency;
+                }
+            }
+        }
+
+        double seconds = wallNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        out.printf("== %s: %d requests, %d errors, %.1f s, %.1f req/s%n", name, total, errors, seconds,
+                total / seconds);
+        out.println("   all          " + percentiles(all));
+        for (int i = 0; i < languages; i++) {
+            out.printf("   %-12s %s%n", distribution.getLanguage(i), percentiles(byLocale[i]));
+        }
+        long lower = 0;
+        for (int b = 0; b < COLD_START_BUCKETS.length; b++) {
+            out.printf("   cold %-7s %s%n", (lower + 1) + "-" + COLD_START_BUCKETS[b], percentiles(bySequence[b]));
+            lower = COLD_START_BUCKETS[b];
+        }
+    }
+
+    private static int bucketOf(long sequence) {
+        for (int b = 0; b < COLD_START_BUCKETS.length; b++) {
+            if (sequence < COLD_START_BUCKETS[b]) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    private static String percentiles(long[] latencies) {
+        if (latencies.length == 0) {
+            return "n/a";
+        }
+        Arrays.sort(latencies);
+        return String.format("p50=%s p99=%s p999=%s max=%s", millis(percentile(latencies, 0.5)),
+                millis(percentile(latencies, 0.99)), millis(percentile(latencies, 0.999)),
+                millis(latencies[latencies.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,218 @@
+package io.timparsons.dropwizard.views.harness;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.test.JerseyTest;
+import org.glassfish.jersey.test.inmemory.InMemoryTestContainerFactory;
+import org.glassfish.jersey.test.spi.TestContainerFactory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+
+import io.dropwizard.Configuration;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+import io.dropwizard.setup.Environment;
+import io.timparsons.dropwizard.views.bundle.LocaleViewBundle;
+
+/**
+ * Boots {@link LocaleViewBundle} in a Jersey in-memory container against a
+ * synthetic catalog and drives it with concurrent clients, reporting
+ * throughput, latency percentiles per locale and the cold-start curve for
+ * each renderer. Each renderer runs in a JVM of its own.
+ * <p>
+ * Options are passed as {@code --name=value}:
+ * <ul>
+ * <li>{@code renderers} - comma separated, {@code ftl} and/or {@code mustache}</li>
+ * <li>{@code clients} - number of concurrent clients</li>
+ * <li>{@code requests} - requests issued by each client</li>
+ * <li>{@code catalogSize} - generated messages per locale</li>
+ * <li>{@code keysPerPage} - messages rendered by each page</li>
+ * <li>{@code locales} - weighted {@code Accept-Language} mix, e.g. {@code en=60,de=30,fr=10}</li>
+ * <li>{@code catalogLocales} - languages present in the catalog, defaults to {@code locales}</li>
+ * <li>{@code renderer.*} - passed to the renderers as view configuration, e.g.
+ * {@code --renderer.STAGE=DEVELOPMENT}</li>
+ * </ul>
+ */
+public class LoadHarness {
+    private static final String RENDERER_OPTION_PREFIX = "renderer.";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        List<String> renderers = Splitter.on(',').trimResults()
+                .splitToList(options.getOrDefault("renderers", "ftl,mustache"));
+        if (renderers.size() > 1) {
+            // class loading, JIT and static caches would carry over from one renderer to the next
+            for (String renderer : renderers) {
+                fork(args, renderer);
+            }
+            return;
+        }
+        int clients = Integer.parseInt(options.getOrDefault("clients", "32"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "2000"));
+        int catalogSize = Integer.parseInt(options.getOrDefault("catalogSize", "500"));
+        int keysPerPage = Integer.parseInt(options.getOrDefault("keysPerPage", "50"));
+        LocaleDistribution distribution = LocaleDistribution
+                .parse(options.getOrDefault("locales", "en=60,de=25,fr=10,es=5"));
+        List<String> catalogLocales = options.containsKey("catalogLocales")
+                ? Splitter.on(',').trimResults().splitToList(options.get("catalogLocales"))
+                : distribution.getLanguages();
+
+        SyntheticCatalog catalog = SyntheticCatalog.create(catalogLocales, catalogSize);
+
+        Map<String, String> rendererOptions = new HashMap<>();
+        rendererOptions.put("locale", catalog.getDirectory().getAbsolutePath());
+        rendererOptions.put("defaultLocale", catalogLocales.get(0));
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            if (option.getKey().startsWith(RENDERER_OPTION_PREFIX)) {
+                rendererOptions.put(option.getKey().substring(RENDERER_OPTION_PREFIX.length()), option.getValue());
+            }
+        }
+
+        System.out.printf("catalog: %d messages x %d locales, %d per page; %d clients x %d requests%n", catalogSize,
+                catalogLocales.size(), keysPerPage, clients, requests);
+
+        String renderer = renderers.get(0);
+        JerseyTest jersey = boot(rendererOptions, catalog.getKeys(keysPerPage));
+        try {
+            run(renderer, jersey.target("harness/" + renderer), distribution, clients, requests);
+        } finally {
+            jersey.tearDown();
+        }
+    }
+
+    /**
+     * Runs the harness for a single renderer in a JVM of its own, so it is
+     * measured from a cold start.
+     */
+    private static void fork(String[] args, String renderer) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(getClassPath());
+        command.add(LoadHarness.class.getName());
+        for (String arg : args) {
+            if (!arg.startsWith("--renderers=")) {
+                command.add(arg);
+            }
+        }
+        command.add("--renderers=" + renderer);
+
+        int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("harness for " + renderer + " exited with " + exitCode);
+        }
+    }
+
+    /**
+     * The harness' own class path; under {@code exec:java} that of the
+     * class loader Maven set up rather than Maven's.
+     */
+    private static String getClassPath() throws URISyntaxException {
+        ClassLoader loader = LoadHarness.class.getClassLoader();
+        if (!(loader instanceof URLClassLoader)) {
+            return System.getProperty("java.class.path");
+        }
+        List<String> entries = new ArrayList<>();
+        for (URL url : ((URLClassLoader) loader).getURLs()) {
+            entries.add(Paths.get(url.toURI()).toString());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static JerseyTest boot(Map<String, String> rendererOptions, List<String> keys) throws Exception {
+        Environment environment = new Environment("load-harness", Jackson.newObjectMapper(),
+                Validators.newValidator(), new MetricRegistry(), LoadHarness.class.getClassLoader());
+
+        LocaleViewBundle<Configuration> bundle = new LocaleViewBundle<Configuration>() {
+            @Override
+            public Map<String, Map<String, String>> getViewConfiguration(Configuration configuration) {
+                return ImmutableMap.of(".ftl", rendererOptions, ".mustache", rendererOptions);
+            }
+        };
+        bundle.run(new Configuration(), environment);
+        environment.jersey().register(new HarnessResource(keys));
+
+        JerseyTest jersey = new JerseyTest(environment.jersey().getResourceConfig()) {
+            @Override
+            protected TestContainerFactory getTestContainerFactory() {
+                return new InMemoryTestContainerFactory();
+            }
+        };
+        jersey.setUp();
+        return jersey;
+    }
+
+    private static void run(String name, WebTarget target, LocaleDistribution distribution, int clients,
+            int requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong sequence = new AtomicLong();
+
+        List<Future<LatencyRecorder>> futures = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            final long seed = c;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                LatencyRecorder recorder = new LatencyRecorder(requests);
+                start.await();
+                for (int i = 0; i < requests; i++) {
+                    int locale = distribution.next(random);
+                    long requestSequence = sequence.getAndIncrement();
+                    long begin = System.nanoTime();
+                    Response response = target.request(MediaType.TEXT_HTML)
+                            .header(HttpHeaders.ACCEPT_LANGUAGE, distribution.getLanguage(locale)).get();
+                    response.readEntity(String.class);
+                    recorder.record(requestSequence, locale, System.nanoTime() - begin,
+                            response.getStatus() == Response.Status.OK.getStatusCode());
+                }
+                return recorder;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        List<LatencyRecorder> recorders = new ArrayList<>(clients);
+        for (Future<LatencyRecorder> future : futures) {
+            recorders.add(future.get());
+        }
+        long wallNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        LatencyRecorder.report(name, recorders, wallNanos, distribution, System.out);
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
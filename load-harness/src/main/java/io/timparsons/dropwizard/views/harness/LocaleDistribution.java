@@ -0,0 +1,64 @@
+package io.timparsons.dropwizard.views.harness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.base.Splitter;
+
+/**
+ * A weighted set of {@code Accept-Language} values, parsed from a
+ * specification such as {@code en=60,de=25,fr-CA=10,es=5}.
+ */
+public class LocaleDistribution {
+
+    private final List<String> languages;
+    private final int[] cumulativeWeights;
+
+    private LocaleDistribution(List<String> languages, int[] cumulativeWeights) {
+        this.languages = languages;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    public static LocaleDistribution parse(String specification) {
+        List<String> languages = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String entry : Splitter.on(',').trimResults().omitEmptyStrings().split(specification)) {
+            List<String> parts = Splitter.on('=').trimResults().splitToList(entry);
+            languages.add(parts.get(0));
+            weights.add(parts.size() > 1 ? Integer.parseInt(parts.get(1)) : 1);
+        }
+        if (languages.isEmpty()) {
+            throw new IllegalArgumentException("no locales in " + specification);
+        }
+
+        int[] cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+        }
+        return new LocaleDistribution(languages, cumulativeWeights);
+    }
+
+    /**
+     * @return the index of the next language to request
+     */
+    public int next(Random random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    public String getLanguage(int index) {
+        return languages.get(index);
+    }
+
+    public List<String> getLanguages() {
+        return languages;
+    }
+}
@@ -0,0 +1,65 @@
+package io.timparsons.dropwizard.views.harness;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Writes a locale directory with one {@value #BUNDLE} bundle per language,
+ * each holding the same number of generated messages.
+ */
+public class SyntheticCatalog {
+    public static final String BUNDLE = "messages";
+    public static final String TITLE_KEY = "title";
+
+    private final File directory;
+    private final List<String> keys;
+
+    private SyntheticCatalog(File directory, List<String> keys) {
+        this.directory = directory;
+        this.keys = keys;
+    }
+
+    public static SyntheticCatalog create(Collection<String> languages, int size) throws IOException {
+        File directory = Files.createTempDirectory("locale-harness").toFile();
+        directory.deleteOnExit();
+
+        List<String> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            keys.add("message." + i);
+        }
+
+        for (String language : languages) {
+            Properties props = new Properties();
+            props.setProperty(TITLE_KEY, "Load harness (" + language + ")");
+            for (String key : keys) {
+                props.setProperty(key, "[" + language + "] " + key + " <b>with</b> some text & markup");
+            }
+
+            File file = new File(directory, BUNDLE + "_" + language + ".properties");
+            file.deleteOnExit();
+            try (OutputStream out = new FileOutputStream(file)) {
+                props.store(out, null);
+            }
+        }
+
+        return new SyntheticCatalog(directory, keys);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the first {@code count} generated message keys
+     */
+    public List<String> getKeys(int count) {
+        return keys.subList(0, Math.min(count, keys.size()));
+    }
+}
@@ -0,0 +1,10 @@
+<html>
+<head><title>${title}</title></head>
+<body>
+<ul>
+<#list messages as message>
+<li>${message}</li>
+</#list>
+</ul>
+</body>
+</html>
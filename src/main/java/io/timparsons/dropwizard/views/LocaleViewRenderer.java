@@ -0,0 +1,69 @@
+package io.timparsons.dropwizard.views;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+import io.dropwizard.views.View;
+import io.dropwizard.views.ViewRenderer;
+import io.timparsons.dropwizard.views.config.LocaleConfiguration;
+
+/**
+ * A {@link ViewRenderer} backed by a locale catalog, exposing the operations
+ * the admin tasks of {@link io.timparsons.dropwizard.views.bundle.LocaleViewBundle}
+ * need to manage its catalog and caches at runtime.
+ */
+public interface LocaleViewRenderer extends ViewRenderer {
+
+    LocaleConfiguration getLocaleConfiguration();
+
+    /**
+     * Returns the compiled template and messages the view would be rendered
+     * with right now. Output rendered after taking the version stays valid as
+     * long as the version's elements are identical to the current ones; they
+     * are replaced whenever the renderer reloads templates or catalog.
+     */
+    Object[] getRenderVersion(View view, Locale locale) throws IOException;
+
+    /**
+     * Re-reads the matching bundles from disk and rebuilds the view bundles
+     * built from them. Views keep being rendered with the previous messages
+     * until the rebuilt bundles are in place, which is the case once this
+     * returns; cached fragments of the language are dropped after that.
+     * 
+     * @param language
+     *            the language to reload, or {@code null} for all of them
+     * @param bundle
+     *            the bundle to reload, or {@code null} for all of them
+     */
+    void reloadLocale(String language, String bundle);
+
+    /**
+     * Drops the cached view bundles of a language ({@code null} for all), so
+     * they are rebuilt on their next use.
+     */
+    void invalidateBundles(String language);
+
+    /**
+     * Rebuilds the cached view bundles of a language ({@code null} for all) in
+     * the background, serving the current ones until then.
+     */
+    void refreshBundles(String language);
+
+    /**
+     * Drops the cached templates, so they are compiled again on their next use.
+     */
+    void invalidateTemplates();
+
+    /**
+     * Rebuilds the cached templates in the background.
+     */
+    void refreshTemplates();
+
+    void clearCache();
+
+    /**
+     * @return the number of entries per cache, by cache name
+     */
+    Map<String, Long> getCacheSizes();
+}
@@ -1,5 +1,6 @@
 package io.timparsons.dropwizard.views.bundle;
 
+import static com.codahale.metrics.MetricRegistry.name;
 import static com.google.common.base.MoreObjects.firstNonNull;
 
 import java.util.ArrayList;
@@ -7,6 +8,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.glassfish.jersey.server.ServerProperties;
+
+import com.codahale.metrics.Gauge;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -14,16 +18,24 @@ import io.dropwizard.Configuration;
 import io.dropwizard.ConfiguredBundle;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
 import io.dropwizard.views.ViewConfigurable;
 import io.dropwizard.views.ViewRenderer;
+import io.timparsons.dropwizard.views.LocaleViewRenderer;
 import io.timparsons.dropwizard.views.freemarker.FreemarkerLocaleViewRenderer;
 import io.timparsons.dropwizard.views.mustache.MustacheLocaleViewRenderer;
+import io.timparsons.dropwizard.views.resources.LocaleCatalogResource;
+import io.timparsons.dropwizard.views.tasks.LocaleCacheTask;
+import io.timparsons.dropwizard.views.tasks.LocaleStatisticsTask;
+import io.timparsons.dropwizard.views.tasks.ReloadLocaleTask;
 import io.timparsons.dropwizard.views.writer.ViewMessageBodyWriter;
 
 public class LocaleViewBundle<T extends Configuration> implements ConfiguredBundle<T>, ViewConfigurable<T> {
     private FreemarkerLocaleViewRenderer freemarkerLocaleViewRenderer;
     private MustacheLocaleViewRenderer mustacheLocaleViewRenderer;
     private final Iterable<ViewRenderer> viewRenderers;
+    private ViewMessageBodyWriter viewMessageBodyWriter;
+    private LocaleCatalogResource localeCatalogResource;
 
     public LocaleViewBundle() {
         List<ViewRenderer> renderers = new ArrayList<>();
@@ -50,16 +62,78 @@ public class LocaleViewBundle<T extends Configuration> implements ConfiguredBund
         return ImmutableMap.of();
     }
 
+    /**
+     * Sets Jersey's {@link ServerProperties#OUTBOUND_CONTENT_LENGTH_BUFFER}
+     * for the whole application. Jersey ignores flushes until this many bytes
+     * are buffered, so return 0 to let {@code <#flush>} and
+     * {@code {{%FLUSH}}} commit the response; responses then only get a
+     * {@code Content-Length} when their writer sets one. The default of -1
+     * keeps Jersey's own setting.
+     */
+    protected int getOutboundContentLengthBuffer(final T configuration) {
+        return -1;
+    }
+
+    /**
+     * Override to serve the message bundles as JSON through a
+     * {@link LocaleCatalogResource}.
+     */
+    protected boolean isCatalogResourceEnabled(final T configuration) {
+        return false;
+    }
+
+    /**
+     * @return how long clients may cache the JSON message bundles
+     */
+    protected Duration getCatalogResourceMaxAge(final T configuration) {
+        return LocaleCatalogResource.DEFAULT_MAX_AGE;
+    }
+
     @Override
     public void run(final T configuration, final Environment environment) throws Exception {
         final Map<String, Map<String, String>> options = getViewConfiguration(configuration);
+        final List<LocaleViewRenderer> localeViewRenderers = new ArrayList<>();
         for (ViewRenderer viewRenderer : viewRenderers) {
             if(options.containsKey(viewRenderer.getSuffix())) {
                 final Map<String, String> viewOptions = options.get(viewRenderer.getSuffix());
                 viewRenderer.configure(firstNonNull(viewOptions, Collections.emptyMap()));
+                if (viewRenderer instanceof LocaleViewRenderer) {
+                    localeViewRenderers.add((LocaleViewRenderer) viewRenderer);
+                }
             }
         }
-        environment.jersey().register(new ViewMessageBodyWriter(environment.metrics(), viewRenderers));
+        final int outboundBuffer = getOutboundContentLengthBuffer(configuration);
+        if (outboundBuffer >= 0) {
+            environment.jersey().property(ServerProperties.OUTBOUND_CONTENT_LENGTH_BUFFER, outboundBuffer);
+        }
+
+        this.viewMessageBodyWriter = new ViewMessageBodyWriter(environment.metrics(), viewRenderers);
+        environment.jersey().register(viewMessageBodyWriter);
+
+        if (isCatalogResourceEnabled(configuration) && !localeViewRenderers.isEmpty()) {
+            this.localeCatalogResource = new LocaleCatalogResource(localeViewRenderers.get(0),
+                    environment.getObjectMapper(), getCatalogResourceMaxAge(configuration));
+            environment.jersey().register(localeCatalogResource);
+            environment.metrics().register(name(LocaleCatalogResource.class, "catalogs", "size"),
+                    (Gauge<Long>) localeCatalogResource::getCacheSize);
+        }
+
+        registerAdmin(environment, localeViewRenderers);
+    }
+
+    private void registerAdmin(final Environment environment, final List<LocaleViewRenderer> localeViewRenderers) {
+        environment.admin().addTask(new ReloadLocaleTask(localeViewRenderers, viewMessageBodyWriter));
+        environment.admin().addTask(new LocaleCacheTask(localeViewRenderers, viewMessageBodyWriter));
+        environment.admin().addTask(new LocaleStatisticsTask(localeViewRenderers, viewMessageBodyWriter));
+
+        for (LocaleViewRenderer renderer : localeViewRenderers) {
+            for (String cache : renderer.getCacheSizes().keySet()) {
+                environment.metrics().register(name(renderer.getClass(), cache, "size"),
+                        (Gauge<Long>) () -> renderer.getCacheSizes().get(cache));
+            }
+        }
+        environment.metrics().register(name(ViewMessageBodyWriter.class, "precompressed", "size"),
+                (Gauge<Long>) viewMessageBodyWriter::getCacheSize);
     }
 
     @Override
@@ -74,4 +148,12 @@ public class LocaleViewBundle<T extends Configuration> implements ConfiguredBund
     public final MustacheLocaleViewRenderer getMustacheLocaleViewRenderer() {
         return mustacheLocaleViewRenderer;
     }
+
+    public final ViewMessageBodyWriter getViewMessageBodyWriter() {
+        return viewMessageBodyWriter;
+    }
+
+    public final LocaleCatalogResource getLocaleCatalogResource() {
+        return localeCatalogResource;
+    }
 }
@@ -0,0 +1,29 @@
+package io.timparsons.dropwizard.views.config;
+
+import io.timparsons.dropwizard.views.config.LocaleMap.LocaleMapValue;
+
+/**
+ * An array-backed view of a {@link LocaleMap} for a fixed list of keys, as used
+ * by the message accessors generated by
+ * {@link io.timparsons.dropwizard.views.processor.MessagesProcessor}. Keys that
+ * are missing from the map resolve to the same placeholder
+ * {@link LocaleMap#get(Object)} returns.
+ */
+public final class IndexedLocaleMap {
+    private final LocaleMapValue[] values;
+
+    IndexedLocaleMap(final LocaleMap map, final String[] keys) {
+        this.values = new LocaleMapValue[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = map.get(keys[i]);
+        }
+    }
+
+    public LocaleMapValue get(final int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return values.length;
+    }
+}
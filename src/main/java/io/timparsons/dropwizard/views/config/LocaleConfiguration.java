@@ -2,7 +2,26 @@ package io.timparsons.dropwizard.views.config;
 
 import java.util.Locale;
 
+import com.google.common.collect.Table;
+
 public interface LocaleConfiguration {
 
     LocaleMap getLocaleBundle(Locale locale, String bundle);
+
+    Locale getDefaultLocale();
+
+    /**
+     * @return the loaded catalog, by language and bundle
+     */
+    Table<String, String, LocaleMap> getLocaleTable();
+
+    /**
+     * Re-reads the catalog from disk, replacing only the bundles that match.
+     * 
+     * @param language
+     *            the language to reload, or {@code null} for all of them
+     * @param bundle
+     *            the bundle to reload, or {@code null} for all of them
+     */
+    void reload(String language, String bundle);
 }
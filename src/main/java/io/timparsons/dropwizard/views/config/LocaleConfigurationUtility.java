@@ -7,20 +7,55 @@ import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.ImmutableTable.Builder;
 import com.google.common.collect.Table;
 import com.google.common.collect.Table.Cell;
 import com.google.common.collect.Tables;
+import com.google.common.reflect.ClassPath;
+import com.google.common.reflect.ClassPath.ResourceInfo;
 
+import io.dropwizard.util.Duration;
 import io.timparsons.dropwizard.views.LocaleView;
 import io.timparsons.dropwizard.views.config.LocaleMap.LocaleMapValue;
 
 public class LocaleConfigurationUtility {
 
+    private static final Duration DEVELOPMENT_REFRESH_INTERVAL = Duration.seconds(1);
+    private static final long MAP_ENTRY_BYTES = 32;
+    private static final long LOCALE_MAP_VALUE_BYTES = 24;
+    private static final long STRING_BYTES = 24;
+    private static final long ARRAY_HEADER_BYTES = 16;
+
+    /**
+     * Determines how often cached templates and catalogs are reloaded in the
+     * background. Uses the {@code refreshInterval} option if present (e.g.
+     * {@code 30s}), falls back to one second in the {@code DEVELOPMENT} stage
+     * and never refreshes otherwise.
+     * 
+     * @param baseConfig
+     *            the view configuration of a renderer
+     */
+    public static Optional<Duration> getRefreshInterval(Map<String, String> baseConfig) {
+        if (baseConfig.containsKey("refreshInterval")) {
+            return Optional.of(Duration.parse(baseConfig.get("refreshInterval")));
+        } else if ("DEVELOPMENT".equalsIgnoreCase(baseConfig.get("STAGE"))) {
+            return Optional.of(DEVELOPMENT_REFRESH_INTERVAL);
+        }
+        return Optional.empty();
+    }
+
     /**
      * Given a directory of locale property files, parse the documents, and hold
      * them in memory.
@@ -59,6 +94,146 @@ public class LocaleConfigurationUtility {
         return localeTable;
     }
 
+    /**
+     * Re-reads a directory of locale property files, but only takes the
+     * bundles matching {@code language} and {@code bundle} from it. All other
+     * bundles are kept as they are in {@code localeTable}.
+     * 
+     * @param directory
+     *            where the locale property files are located
+     * @param localeTable
+     *            the currently loaded locale files
+     * @param language
+     *            the language to reload, or {@code null} for all of them
+     * @param bundle
+     *            the bundle to reload, or {@code null} for all of them
+     */
+    public static Table<String, String, LocaleMap> reloadLocaleFiles(String directory,
+            Table<String, String, LocaleMap> localeTable, String language, String bundle) {
+        Table<String, String, LocaleMap> reloadedTable = getLocaleFiles(directory);
+        Builder<String, String, LocaleMap> tableBuilder = new ImmutableTable.Builder<>();
+
+        for (Cell<String, String, LocaleMap> cell : localeTable.cellSet()) {
+            if (!matches(cell, language, bundle)) {
+                tableBuilder.put(cell);
+            }
+        }
+        for (Cell<String, String, LocaleMap> cell : reloadedTable.cellSet()) {
+            if (matches(cell, language, bundle)) {
+                tableBuilder.put(cell);
+            }
+        }
+
+        return tableBuilder.build();
+    }
+
+    private static boolean matches(Cell<String, String, LocaleMap> cell, String language, String bundle) {
+        return (language == null || language.equals(cell.getRowKey()))
+                && (bundle == null || bundle.equals(cell.getColumnKey()));
+    }
+
+    /**
+     * Roughly estimates the heap retained by a locale bundle: its keys, values
+     * and the HTML forms computed so far, plus the map entries holding them.
+     */
+    public static long estimateRetainedBytes(LocaleMap localeMap) {
+        long bytes = 0;
+        for (Entry<String, LocaleMapValue> entry : localeMap.entrySet()) {
+            LocaleMapValue value = entry.getValue();
+            bytes += MAP_ENTRY_BYTES + LOCALE_MAP_VALUE_BYTES;
+            bytes += estimateRetainedBytes(entry.getKey()) + estimateRetainedBytes(value.toString());
+            String html = value.getComputedHtml();
+            if (html != null && html != value.toString()) {
+                bytes += estimateRetainedBytes(html);
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateRetainedBytes(String value) {
+        // String header and fields plus the char[] header and its UTF-16 contents
+        return STRING_BYTES + ARRAY_HEADER_BYTES + 2L * value.length();
+    }
+
+    /**
+     * Whether the view bundle of {@code viewClass} for {@code locale} contains
+     * messages of a reloaded language and bundle. Reloading the default
+     * language affects every locale, since they all fall back to it.
+     */
+    public static boolean isAffectedByReload(Class<? extends LocaleView> viewClass, Locale locale, String language,
+            String bundle, Locale defaultLocale) {
+        boolean languageAffected = language == null || language.equals(locale.getLanguage())
+                || language.equals(defaultLocale.getLanguage());
+        return languageAffected && (bundle == null || getViewBundles(viewClass).contains(bundle));
+    }
+
+    /**
+     * Loads the view bundles affected by a reload again and puts them in
+     * place, so they are in use once this returns; see
+     * {@link #isAffectedByReload}.
+     */
+    public static void reloadViewBundles(LoadingCache<Pair<Class<? extends LocaleView>, Locale>, LocaleMap> bundleCache,
+            CacheLoader<Pair<Class<? extends LocaleView>, Locale>, LocaleMap> loader, String language, String bundle,
+            Locale defaultLocale) {
+        for (Pair<Class<? extends LocaleView>, Locale> key : bundleCache.asMap().keySet()) {
+            if (isAffectedByReload(key.getLeft(), key.getRight(), language, bundle, defaultLocale)) {
+                final LocaleMap reloaded;
+                try {
+                    reloaded = loader.load(key);
+                } catch (Exception e) {
+                    throw new RuntimeException("Unable to reload bundles of " + key.getLeft().getName(), e);
+                }
+                if (reloaded == null) {
+                    bundleCache.invalidate(key);
+                } else {
+                    bundleCache.put(key, reloaded);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param language
+     *            the language to drop, or {@code null} for all of them
+     */
+    public static void invalidateViewBundles(
+            LoadingCache<Pair<Class<? extends LocaleView>, Locale>, LocaleMap> bundleCache, String language) {
+        for (Pair<Class<? extends LocaleView>, Locale> key : bundleCache.asMap().keySet()) {
+            if (language == null || language.equals(key.getRight().getLanguage())) {
+                bundleCache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * @param language
+     *            the language to refresh, or {@code null} for all of them
+     */
+    public static void refreshViewBundles(
+            LoadingCache<Pair<Class<? extends LocaleView>, Locale>, LocaleMap> bundleCache, String language) {
+        for (Pair<Class<? extends LocaleView>, Locale> key : bundleCache.asMap().keySet()) {
+            if (language == null || language.equals(key.getRight().getLanguage())) {
+                bundleCache.refresh(key);
+            }
+        }
+    }
+
+    /**
+     * Lists every resource with the given suffix that {@code classLoader} can
+     * load, i.e. every template and locale variant under the classpath roots.
+     * 
+     * @return the resource names, without a leading slash
+     */
+    public static Set<String> getTemplateIndex(ClassLoader classLoader, String suffix) throws IOException {
+        ImmutableSet.Builder<String> templates = ImmutableSet.builder();
+        for (ResourceInfo resource : ClassPath.from(classLoader).getResources()) {
+            if (resource.getResourceName().endsWith(suffix)) {
+                templates.add(resource.getResourceName());
+            }
+        }
+        return templates.build();
+    }
+
     public static List<String> getViewBundles(Class<? extends LocaleView> localeViewClass) {
         List<String> viewBundles = new LinkedList<>();
 
@@ -4,14 +4,18 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.html.HtmlEscapers;
 
 import io.timparsons.dropwizard.views.config.LocaleMap.LocaleMapValue;
 
 public class LocaleMap implements Map<String, LocaleMapValue> {
 
     private ImmutableMap<String, LocaleMapValue> internalMap;
+    private final ConcurrentMap<String[], IndexedLocaleMap> indexes = new ConcurrentHashMap<>();
 
     private LocaleMap() {
     }
@@ -90,13 +94,53 @@ public class LocaleMap implements Map<String, LocaleMapValue> {
 
     public final static class LocaleMapValue {
         private final String value;
+        // escaped on first use, only templates using .html or .htmlParams need it
+        private volatile String html;
 
         public LocaleMapValue(final String value) {
             this.value = value;
         }
 
         public String params(final String... params) {
-            String parameterizedString = this.value;
+            return substitute(this.value, params);
+        }
+
+        /**
+         * @return the HTML-escaped form of this value, escaped once and kept
+         *         so renderers don't escape the message again on every page
+         */
+        public String html() {
+            String escaped = html;
+            if (escaped == null) {
+                // racing threads compute the same string, any of them can win
+                escaped = HtmlEscapers.htmlEscaper().escape(value);
+                html = escaped;
+            }
+            return escaped;
+        }
+
+        /**
+         * @return the HTML-escaped form if it has been computed, or
+         *         {@code null}
+         */
+        String getComputedHtml() {
+            return html;
+        }
+
+        /**
+         * Like {@link #params(String...)}, but on the HTML-escaped form. Only
+         * the substituted parameters are escaped at call time.
+         */
+        public String htmlParams(final String... params) {
+            final String[] escapedParams = new String[params.length];
+            for (int i = 0; i < params.length; i++) {
+                escapedParams[i] = HtmlEscapers.htmlEscaper().escape(params[i]);
+            }
+            return substitute(html(), escapedParams);
+        }
+
+        private static String substitute(final String value, final String... params) {
+            String parameterizedString = value;
 
             for (int i = 0; i < params.length; i++) {
             	String param = params[i];
@@ -184,6 +228,15 @@ public class LocaleMap implements Map<String, LocaleMapValue> {
         return internalMap.entrySet();
     }
 
+    /**
+     * Resolves {@code keys} once and returns them as an array-backed map. The
+     * result is remembered per key array, so callers should pass the same
+     * (constant) array every time.
+     */
+    public IndexedLocaleMap index(final String[] keys) {
+        return indexes.computeIfAbsent(keys, k -> new IndexedLocaleMap(this, k));
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -0,0 +1,18 @@
+package io.timparsons.dropwizard.views.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a view whose rendered output only depends on its class, template and
+ * locale. The output of such views is rendered once per locale and kept,
+ * together with a gzip-compressed copy, by the
+ * {@link io.timparsons.dropwizard.views.writer.ViewMessageBodyWriter}, until
+ * the renderer reloads the template or messages it was rendered from.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Precompressed {
+}
@@ -1,19 +1,50 @@
 package io.timparsons.dropwizard.views.config.freemarker;
 
+import java.io.IOException;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Table;
 
+import freemarker.core.ParseException;
 import freemarker.template.Configuration;
+import freemarker.template.MalformedTemplateNameException;
+import freemarker.template.Template;
 import freemarker.template.TemplateException;
+import freemarker.template.TemplateNotFoundException;
 import freemarker.template.Version;
 import io.timparsons.dropwizard.views.config.LocaleConfiguration;
 import io.timparsons.dropwizard.views.config.LocaleConfigurationUtility;
 import io.timparsons.dropwizard.views.config.LocaleMap;
+import io.timparsons.dropwizard.views.writer.PreEncodedWriter;
 
 public class FreemarkerLocaleConfiguration extends Configuration implements LocaleConfiguration {
 
-    private Table<String, String, LocaleMap> localeTable;
+    /**
+     * Options that are handled by the renderer rather than Freemarker.
+     */
+    private static final Set<String> RENDERER_SETTINGS = ImmutableSet.of("STAGE", "preEncodeStaticText",
+            "refreshInterval", "fragmentCacheSize", "fragmentCacheTtl", "templateIndex");
+
+    private static final int MAX_REQUESTED_TEMPLATES = 1024;
+
+    /**
+     * Name, locale ({@code null} for the configuration's own) and encoding of
+     * the templates requested through {@link #getViewTemplate}.
+     */
+    private final Set<Triple<String, Locale, String>> requestedTemplates = ConcurrentHashMap.newKeySet();
+    private final Cache<Template, Boolean> registeredTemplates = CacheBuilder.newBuilder().concurrencyLevel(128)
+            .weakKeys().build();
+    private PreEncodedWriter.SegmentCache segmentCache;
+    private volatile Table<String, String, LocaleMap> localeTable;
+    private String localeDirectory;
     private Locale defaultLocale = Locale.getDefault();
 
     public FreemarkerLocaleConfiguration(Version incompatibleImprovements) {
@@ -23,10 +54,11 @@ public class FreemarkerLocaleConfiguration extends Configuration implements Loca
     @Override
     public void setSetting(String name, String value) throws TemplateException {
         if (name.equals("locale")) {
+            localeDirectory = value;
             localeTable = LocaleConfigurationUtility.getLocaleFiles(value);
         } else if (name.equals("defaultLocale")) {
             defaultLocale = Locale.forLanguageTag(value);
-        } else if (!name.equals("STAGE")) {
+        } else if (!RENDERER_SETTINGS.contains(name)) {
             super.setSetting(name, value);
         }
     }
@@ -39,4 +71,72 @@ public class FreemarkerLocaleConfiguration extends Configuration implements Loca
             return localeTable.get(defaultLocale.getLanguage(), bundle);
         }
     }
+
+    @Override
+    public Locale getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    @Override
+    public Table<String, String, LocaleMap> getLocaleTable() {
+        return localeTable;
+    }
+
+    @Override
+    public void reload(String language, String bundle) {
+        localeTable = LocaleConfigurationUtility.reloadLocaleFiles(localeDirectory, localeTable, language, bundle);
+    }
+
+    /**
+     * Registers the literal text of every template this configuration loads,
+     * including the ones pulled in by {@code <#include>} and
+     * {@code <#import>}, with the cache.
+     */
+    public void setSegmentCache(PreEncodedWriter.SegmentCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    @Override
+    public Template getTemplate(String name, Locale locale, Object customLookupCondition, String encoding,
+            boolean parseAsFTL, boolean ignoreMissing) throws TemplateNotFoundException,
+            MalformedTemplateNameException, ParseException, IOException {
+        final Template template = super.getTemplate(name, locale, customLookupCondition, encoding, parseAsFTL,
+                ignoreMissing);
+        if (template != null && segmentCache != null
+                && registeredTemplates.asMap().putIfAbsent(template, Boolean.TRUE) == null) {
+            TextBlocks.register(template, segmentCache);
+        }
+        return template;
+    }
+
+    /**
+     * Gets a template and remembers the request, so a configuration replacing
+     * this one can compile the same templates up front.
+     * 
+     * @param locale
+     *            the locale to look the template up for, or {@code null} for
+     *            the configuration's locale
+     */
+    public Template getViewTemplate(String name, Locale locale, String encoding) throws IOException {
+        if (requestedTemplates.size() < MAX_REQUESTED_TEMPLATES) {
+            requestedTemplates.add(new ImmutableTriple<>(name, locale, encoding));
+        }
+        if (locale == null) {
+            return getTemplate(name, encoding);
+        }
+        return getTemplate(name, locale, encoding);
+    }
+
+    /**
+     * Compiles the templates that were requested from {@code previous}.
+     */
+    public void compileTemplates(FreemarkerLocaleConfiguration previous) {
+        for (Triple<String, Locale, String> template : previous.requestedTemplates) {
+            try {
+                getViewTemplate(template.getLeft(), template.getMiddle(), template.getRight());
+            } catch (IOException e) {
+                // fails again, and is reported, when the template is rendered
+            }
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package io.timparsons.dropwizard.views.config.freemarker;
+
+import java.lang.reflect.Field;
+
+import freemarker.core.TemplateElement;
+import freemarker.template.Template;
+import io.timparsons.dropwizard.views.writer.PreEncodedWriter;
+
+/**
+ * Registers the literal text of parsed templates with a
+ * {@link PreEncodedWriter.SegmentCache}. Freemarker writes each text block as
+ * the block's own {@code char[]}, but doesn't expose it, so it is read
+ * reflectively; where that isn't possible nothing is registered and all text is
+ * encoded as it is written.
+ */
+final class TextBlocks {
+    private static final Field TEXT = findTextField();
+
+    private TextBlocks() {
+    }
+
+    @SuppressWarnings("deprecation")
+    static void register(final Template template, final PreEncodedWriter.SegmentCache segmentCache) {
+        if (TEXT != null) {
+            register(template.getRootTreeNode(), segmentCache);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void register(final TemplateElement element, final PreEncodedWriter.SegmentCache segmentCache) {
+        if (element.getClass() == TEXT.getDeclaringClass()) {
+            try {
+                segmentCache.register(TEXT.get(element));
+            } catch (IllegalAccessException e) {
+                // stays encoded on the fly
+            }
+        }
+        for (int i = 0; i < element.getChildCount(); i++) {
+            register((TemplateElement) element.getChildAt(i), segmentCache);
+        }
+    }
+
+    private static Field findTextField() {
+        try {
+            final Field text = Class.forName("freemarker.core.TextBlock").getDeclaredField("text");
+            text.setAccessible(true);
+            return text.getType() == char[].class ? text : null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
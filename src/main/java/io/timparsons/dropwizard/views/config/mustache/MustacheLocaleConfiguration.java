@@ -10,10 +10,12 @@ import io.timparsons.dropwizard.views.config.LocaleMap;
 
 public class MustacheLocaleConfiguration implements LocaleConfiguration {
 
-    private Table<String, String, LocaleMap> localeTable;
+    private volatile Table<String, String, LocaleMap> localeTable;
+    private final String localeDirectory;
     private Locale defaultLocale = Locale.getDefault();
 
     public MustacheLocaleConfiguration(String directory, String defaultLocale) {
+        this.localeDirectory = directory;
         this.localeTable = LocaleConfigurationUtility.getLocaleFiles(directory);
         if (defaultLocale != null) {
             this.defaultLocale = Locale.forLanguageTag(defaultLocale);
@@ -29,4 +31,18 @@ public class MustacheLocaleConfiguration implements LocaleConfiguration {
         }
     }
 
+    @Override
+    public Locale getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    @Override
+    public Table<String, String, LocaleMap> getLocaleTable() {
+        return localeTable;
+    }
+
+    @Override
+    public void reload(String language, String bundle) {
+        localeTable = LocaleConfigurationUtility.reloadLocaleFiles(localeDirectory, localeTable, language, bundle);
+    }
 }
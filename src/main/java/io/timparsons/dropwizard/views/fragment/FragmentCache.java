@@ -0,0 +1,124 @@
+package io.timparsons.dropwizard.views.fragment;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.dropwizard.util.Duration;
+
+/**
+ * Rendered template fragments by explicit key and language, shared by all
+ * templates of a renderer. Entries expire after their own TTL, which is capped
+ * at the cache's maximum TTL, and are evicted beyond the maximum size.
+ * Renderers invalidate a language's fragments when its catalog is reloaded
+ * through {@link io.timparsons.dropwizard.views.LocaleViewRenderer#reloadLocale};
+ * periodic refreshes leave them to expire.
+ */
+public class FragmentCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FragmentCache.class);
+    private static final long DEFAULT_MAXIMUM_SIZE = 1000L;
+    private static final Duration DEFAULT_TTL = Duration.minutes(10);
+
+    private final Cache<Pair<String, String>, Fragment> fragments;
+    private final Duration defaultTtl;
+    private final Set<Pair<String, Duration>> cappedTtls = ConcurrentHashMap.newKeySet();
+
+    private static final class Fragment {
+        private final String content;
+        private final long expiresAt;
+
+        Fragment(final String content, final long expiresAt) {
+            this.content = content;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public FragmentCache(final long maximumSize, final Duration defaultTtl) {
+        this.defaultTtl = defaultTtl;
+        this.fragments = CacheBuilder.newBuilder().concurrencyLevel(128).maximumSize(maximumSize)
+                .expireAfterWrite(defaultTtl.getQuantity(), defaultTtl.getUnit()).build();
+    }
+
+    public FragmentCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL);
+    }
+
+    /**
+     * Creates a fragment cache from the {@code fragmentCacheSize} and
+     * {@code fragmentCacheTtl} options of a renderer's view configuration.
+     */
+    public static FragmentCache fromConfig(final Map<String, String> baseConfig) {
+        final long maximumSize = baseConfig.containsKey("fragmentCacheSize")
+                ? Long.parseLong(baseConfig.get("fragmentCacheSize"))
+                : DEFAULT_MAXIMUM_SIZE;
+        final Duration ttl = baseConfig.containsKey("fragmentCacheTtl")
+                ? Duration.parse(baseConfig.get("fragmentCacheTtl"))
+                : DEFAULT_TTL;
+        return new FragmentCache(maximumSize, ttl);
+    }
+
+    /**
+     * Caps a fragment's TTL at the cache's maximum, warning the first time a
+     * fragment asks for more. Renderers call this when they parse a template's
+     * TTL, so a misconfigured TTL only costs a log line.
+     * 
+     * @return {@code ttl}, or the cache's maximum TTL if {@code ttl} is longer
+     */
+    public Duration capTtl(final String key, final Duration ttl) {
+        if (ttl == null || ttl.toNanoseconds() <= defaultTtl.toNanoseconds()) {
+            return ttl;
+        }
+        if (cappedTtls.add(new ImmutablePair<>(key, ttl))) {
+            LOGGER.warn("TTL {} of fragment {} is longer than the fragment cache's maximum of {} (fragmentCacheTtl), "
+                    + "using {}", ttl, key, defaultTtl, defaultTtl);
+        }
+        return defaultTtl;
+    }
+
+    /**
+     * Returns the cached fragment, rendering it if it is missing or expired.
+     * Concurrent requests for a missing fragment wait for a single render.
+     * 
+     * @param ttl
+     *            how long the fragment stays cached, {@code null} for the
+     *            cache's default; capped at the cache's maximum TTL
+     */
+    public String get(final String key, final Locale locale, final Duration ttl, final Callable<String> render)
+            throws ExecutionException {
+        final Pair<String, String> cacheKey = new ImmutablePair<>(key, locale.getLanguage());
+        final Fragment cached = fragments.getIfPresent(cacheKey);
+        if (cached != null && cached.expiresAt - System.nanoTime() < 0) {
+            fragments.asMap().remove(cacheKey, cached);
+        }
+
+        final long ttlNanos = (ttl != null ? capTtl(key, ttl) : defaultTtl).toNanoseconds();
+        return fragments.get(cacheKey, () -> new Fragment(render.call(), System.nanoTime() + ttlNanos)).content;
+    }
+
+    /**
+     * @param language
+     *            the language to drop, or {@code null} for all of them
+     */
+    public void invalidate(final String language) {
+        if (language == null) {
+            fragments.invalidateAll();
+        } else {
+            fragments.asMap().keySet().removeIf(key -> language.equals(key.getRight()));
+        }
+    }
+
+    public long size() {
+        return fragments.size();
+    }
+}
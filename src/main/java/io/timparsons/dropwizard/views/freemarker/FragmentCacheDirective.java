@@ -0,0 +1,89 @@
+package io.timparsons.dropwizard.views.freemarker;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import freemarker.core.Environment;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateScalarModel;
+import io.dropwizard.util.Duration;
+import io.timparsons.dropwizard.views.fragment.FragmentCache;
+
+/**
+ * Caches the output of its body per key and locale:
+ * {@code <@fragment key="navigation" ttl="5m">...</@fragment>}. The
+ * {@code ttl} parameter is optional and is capped at the cache's maximum TTL.
+ */
+public class FragmentCacheDirective implements TemplateDirectiveModel {
+    /**
+     * The custom attribute holding the locale the view is rendered for.
+     */
+    static final String LOCALE_ATTRIBUTE = FragmentCacheDirective.class.getName() + ".locale";
+
+    private final FragmentCache fragmentCache;
+
+    public FragmentCacheDirective(final FragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+    }
+
+    @Override
+    public void execute(final Environment env, @SuppressWarnings("rawtypes") final Map params,
+            final TemplateModel[] loopVars, final TemplateDirectiveBody body) throws TemplateException, IOException {
+        final String key = getString(params, "key");
+        if (key == null) {
+            throw new TemplateModelException("fragment requires a key parameter");
+        }
+        final String ttl = getString(params, "ttl");
+        if (body == null) {
+            return;
+        }
+
+        final Object localeAttribute = env.getCustomAttribute(LOCALE_ATTRIBUTE);
+        final Locale locale = localeAttribute instanceof Locale ? (Locale) localeAttribute : env.getLocale();
+        final String content;
+        try {
+            content = fragmentCache.get(key, locale, getTtl(key, ttl), () -> {
+                final StringWriter writer = new StringWriter();
+                body.render(writer);
+                return writer.toString();
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TemplateException) {
+                throw (TemplateException) e.getCause();
+            } else if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new TemplateModelException("Failed to render fragment " + key, e);
+        }
+        env.getOut().write(content);
+    }
+
+    private Duration getTtl(final String key, final String ttl) throws TemplateModelException {
+        if (ttl == null) {
+            return null;
+        }
+        try {
+            return fragmentCache.capTtl(key, Duration.parse(ttl));
+        } catch (IllegalArgumentException e) {
+            throw new TemplateModelException("fragment " + key + " has an invalid ttl " + ttl, e);
+        }
+    }
+
+    private static String getString(@SuppressWarnings("rawtypes") final Map params, final String name)
+            throws TemplateModelException {
+        final Object value = params.get(name);
+        if (value == null) {
+            return null;
+        } else if (value instanceof TemplateScalarModel) {
+            return ((TemplateScalarModel) value).getAsString();
+        }
+        throw new TemplateModelException("fragment parameter " + name + " must be a string");
+    }
+}
@@ -3,12 +3,18 @@ package io.timparsons.dropwizard.views.freemarker;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -17,23 +23,43 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import freemarker.template.DefaultObjectWrapperBuilder;
+import freemarker.core.Environment;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import freemarker.template.Version;
+import io.dropwizard.util.Duration;
 import io.dropwizard.views.View;
-import io.dropwizard.views.ViewRenderer;
 import io.timparsons.dropwizard.views.LocaleView;
+import io.timparsons.dropwizard.views.LocaleViewRenderer;
 import io.timparsons.dropwizard.views.config.LocaleConfigurationUtility;
 import io.timparsons.dropwizard.views.config.LocaleMap;
 import io.timparsons.dropwizard.views.config.freemarker.FreemarkerLocaleConfiguration;
+import io.timparsons.dropwizard.views.fragment.FragmentCache;
+import io.timparsons.dropwizard.views.writer.PreEncodedWriter;
 
-public class FreemarkerLocaleViewRenderer implements ViewRenderer {
+public class FreemarkerLocaleViewRenderer implements LocaleViewRenderer {
 
     private static final Version FREEMARKER_VERSION = FreemarkerLocaleConfiguration.getVersion();
     private final TemplateLoader loader;
     private final LocaleLoader localeLoader;
+    private final ConcurrentMap<String, Charset> charsets = new ConcurrentHashMap<>();
+    private final PreEncodedWriter.SegmentCache segmentCache = new PreEncodedWriter.SegmentCache();
+    private boolean preEncodeStaticText = false;
+    private FragmentCache fragmentCache = new FragmentCache();
+    private boolean templateIndex = false;
+    private final LoadingCache<ClassLoader, Set<String>> templateIndexes = CacheBuilder.newBuilder().weakKeys()
+            .build(new CacheLoader<ClassLoader, Set<String>>() {
+                @Override
+                public Set<String> load(final ClassLoader key) throws Exception {
+                    return LocaleConfigurationUtility.getTemplateIndex(key, getSuffix());
+                }
+            });
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("freemarker-locale-refresh-%d").build());
 
     private class TemplateLoader extends CacheLoader<Class<?>, FreemarkerLocaleConfiguration> {
         private Map<String, String> baseConfig = ImmutableMap.of();
@@ -41,16 +67,36 @@ public class FreemarkerLocaleViewRenderer implements ViewRenderer {
         @Override
         public FreemarkerLocaleConfiguration load(final Class<?> key) throws Exception {
             final FreemarkerLocaleConfiguration configuration = new FreemarkerLocaleConfiguration(FREEMARKER_VERSION);
-            configuration.setObjectWrapper(new DefaultObjectWrapperBuilder(FREEMARKER_VERSION).build());
+            configuration.setObjectWrapper(new LocaleObjectWrapper(FREEMARKER_VERSION));
             configuration.loadBuiltInEncodingMap();
             configuration.setDefaultEncoding(StandardCharsets.UTF_8.name());
             configuration.setClassForTemplateLoading(key, "/");
+            if (templateIndex && key.getClassLoader() != null) {
+                final Set<String> templates = templateIndexes.getUnchecked(key.getClassLoader());
+                // an empty index means the classpath couldn't be scanned, keep probing then
+                if (!templates.isEmpty()) {
+                    configuration.setTemplateLookupStrategy(new IndexedTemplateLookupStrategy(templates, getSuffix()));
+                }
+            }
+            if (preEncodeStaticText) {
+                configuration.setSegmentCache(segmentCache);
+            }
+            configuration.setSharedVariable("fragment", new FragmentCacheDirective(fragmentCache));
             for (Map.Entry<String, String> entry : baseConfig.entrySet()) {
                 configuration.setSetting(entry.getKey(), entry.getValue());
             }
             return configuration;
         }
 
+        @Override
+        public ListenableFuture<FreemarkerLocaleConfiguration> reload(final Class<?> key,
+                final FreemarkerLocaleConfiguration oldValue) throws Exception {
+            final FreemarkerLocaleConfiguration configuration = load(key);
+            // compile what the old configuration served before it's swapped out, not on the next request
+            configuration.compileTemplates(oldValue);
+            return Futures.immediateFuture(configuration);
+        }
+
         void setBaseConfig(final Map<String, String> baseConfig) {
             this.baseConfig = baseConfig;
         }
@@ -98,48 +144,72 @@ public class FreemarkerLocaleViewRenderer implements ViewRenderer {
     public void render(final View view, final Locale locale, final OutputStream output) throws IOException {
 
         try {
-            Template template = null;
             final FreemarkerLocaleConfiguration configuration = configurationCache.getUnchecked(view.getClass());
-            final Charset charset = view.getCharset()
-                    .orElseGet(() -> Charset.forName(configuration.getEncoding(locale)));
             if (LocaleView.class.isInstance(view)) {
                 @SuppressWarnings("unchecked")
                 Class<LocaleView> viewClass = (Class<LocaleView>) view.getClass();
                 final LocaleMap viewLocaleBundles = getViewBundles(viewClass, locale);
 
                 ((LocaleView) view).setMessageBundle(viewLocaleBundles);
-
-                template = configuration.getTemplate(view.getTemplateName(), charset.name());
-            } else {
-                template = configuration.getTemplate(view.getTemplateName(), locale, charset.name());
             }
-            template.process(view, new OutputStreamWriter(output, template.getEncoding()));
+            final Template template = getTemplate(configuration, view, locale);
+            final Environment env = template.createProcessingEnvironment(view,
+                    createWriter(output, getCharset(template.getEncoding())));
+            env.setCustomAttribute(FragmentCacheDirective.LOCALE_ATTRIBUTE, locale);
+            env.process();
         } catch (TemplateException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private Template getTemplate(final FreemarkerLocaleConfiguration configuration, final View view,
+            final Locale locale) throws IOException {
+        final Charset charset = view.getCharset().orElseGet(() -> getCharset(configuration.getEncoding(locale)));
+        final Template template;
+        if (LocaleView.class.isInstance(view)) {
+            template = configuration.getViewTemplate(view.getTemplateName(), null, charset.name());
+        } else {
+            template = configuration.getViewTemplate(view.getTemplateName(), locale, charset.name());
+        }
+        return template;
+    }
+
+    private Writer createWriter(final OutputStream output, final Charset charset) {
+        if (preEncodeStaticText) {
+            return new PreEncodedWriter(output, charset, segmentCache);
+        }
+        return new OutputStreamWriter(output, charset);
+    }
+
+    private Charset getCharset(final String encoding) {
+        return charsets.computeIfAbsent(encoding, Charset::forName);
+    }
+
     @Override
     public void configure(final Map<String, String> baseConfig) {
         this.loader.setBaseConfig(baseConfig);
-
-        boolean devMode = false;
-
-        if (baseConfig.containsKey("STAGE")) {
-            devMode = baseConfig.get("STAGE").equalsIgnoreCase("DEVELOPMENT");
+        this.preEncodeStaticText = Boolean.parseBoolean(baseConfig.get("preEncodeStaticText"));
+        this.fragmentCache = FragmentCache.fromConfig(baseConfig);
+        this.templateIndex = Boolean.parseBoolean(baseConfig.get("templateIndex"));
+        if (templateIndex) {
+            // scan the classpath once at startup rather than on the first request
+            templateIndexes.getUnchecked(getClass().getClassLoader());
         }
 
+        // stale entries keep being served while they are reloaded in the background
+        final Optional<Duration> refreshInterval = LocaleConfigurationUtility.getRefreshInterval(baseConfig);
+
         CacheBuilder<Object, Object> configBuilder = CacheBuilder.newBuilder().concurrencyLevel(128);
-        if (devMode) {
-            configBuilder.expireAfterWrite(1L, TimeUnit.SECONDS);
+        if (refreshInterval.isPresent()) {
+            configBuilder.refreshAfterWrite(refreshInterval.get().getQuantity(), refreshInterval.get().getUnit());
         }
-        this.configurationCache = configBuilder.build(loader);
+        this.configurationCache = configBuilder.build(CacheLoader.asyncReloading(loader, refreshExecutor));
 
         CacheBuilder<Object, Object> bundleBuilder = CacheBuilder.newBuilder().concurrencyLevel(128);
-        if (devMode) {
-            bundleBuilder.expireAfterWrite(1L, TimeUnit.SECONDS);
+        if (refreshInterval.isPresent()) {
+            bundleBuilder.refreshAfterWrite(refreshInterval.get().getQuantity(), refreshInterval.get().getUnit());
         }
-        this.bundleCache = bundleBuilder.build(localeLoader);
+        this.bundleCache = bundleBuilder.build(CacheLoader.asyncReloading(localeLoader, refreshExecutor));
     }
 
     @Override
@@ -147,13 +217,73 @@ public class FreemarkerLocaleViewRenderer implements ViewRenderer {
         return ".ftl";
     }
 
+    @Override
     public void clearCache() {
         configurationCache.invalidateAll();
         bundleCache.invalidateAll();
+        segmentCache.clear();
+        fragmentCache.invalidate(null);
     }
 
     public LocaleMap getViewBundles(final Class<? extends LocaleView> view, final Locale locale) {
         return bundleCache.getUnchecked(new ImmutablePair<Class<? extends LocaleView>, Locale>(view, locale));
     }
 
+    @Override
+    public Object[] getRenderVersion(final View view, final Locale locale) throws IOException {
+        final FreemarkerLocaleConfiguration configuration = configurationCache.getUnchecked(view.getClass());
+        // Freemarker replaces the Template itself when it picks up a modified file
+        final Template template = getTemplate(configuration, view, locale);
+        if (LocaleView.class.isInstance(view)) {
+            return new Object[] { configuration, template,
+                    getViewBundles(view.getClass().asSubclass(LocaleView.class), locale) };
+        }
+        return new Object[] { configuration, template };
+    }
+
+    @Override
+    public FreemarkerLocaleConfiguration getLocaleConfiguration() {
+        return configurationCache.getUnchecked(LocaleView.class);
+    }
+
+    @Override
+    public void reloadLocale(final String language, final String bundle) {
+        for (FreemarkerLocaleConfiguration configuration : configurationCache.asMap().values()) {
+            configuration.reload(language, bundle);
+        }
+        final Locale defaultLocale = getLocaleConfiguration().getDefaultLocale();
+        LocaleConfigurationUtility.reloadViewBundles(bundleCache, localeLoader, language, bundle, defaultLocale);
+        // only now that the new bundles are in place, or pages would be cached again from the old ones
+        fragmentCache.invalidate(defaultLocale.getLanguage().equals(language) ? null : language);
+    }
+
+    @Override
+    public void invalidateBundles(final String language) {
+        LocaleConfigurationUtility.invalidateViewBundles(bundleCache, language);
+    }
+
+    @Override
+    public void refreshBundles(final String language) {
+        LocaleConfigurationUtility.refreshViewBundles(bundleCache, language);
+    }
+
+    @Override
+    public void invalidateTemplates() {
+        configurationCache.invalidateAll();
+        segmentCache.clear();
+        fragmentCache.invalidate(null);
+    }
+
+    @Override
+    public void refreshTemplates() {
+        for (Class<?> key : configurationCache.asMap().keySet()) {
+            configurationCache.refresh(key);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCacheSizes() {
+        return ImmutableMap.of("configurations", configurationCache.size(), "bundles", bundleCache.size(),
+                "fragments", fragmentCache.size());
+    }
 }
@@ -0,0 +1,58 @@
+package io.timparsons.dropwizard.views.freemarker;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+
+import freemarker.cache.TemplateLookupContext;
+import freemarker.cache.TemplateLookupResult;
+import freemarker.cache.TemplateLookupStrategy;
+
+/**
+ * Resolves localized template names ({@code name_en_US.ftl},
+ * {@code name_en.ftl}, {@code name.ftl}) against an index of the templates that
+ * exist, so only names that are known to exist are handed to the template
+ * loader and misses never touch the classpath. The index only holds templates
+ * with the renderer's suffix; other names, e.g. an included {@code .ftlh} or
+ * {@code .html} file, are looked up the default way.
+ */
+class IndexedTemplateLookupStrategy extends TemplateLookupStrategy {
+    private final Set<String> templates;
+    private final String suffix;
+
+    IndexedTemplateLookupStrategy(final Set<String> templates, final String suffix) {
+        this.templates = templates;
+        this.suffix = suffix;
+    }
+
+    @Override
+    public TemplateLookupResult lookup(final TemplateLookupContext ctx) throws IOException {
+        final String templateName = ctx.getTemplateName();
+        if (templateName.indexOf('*') != -1 || !templateName.endsWith(suffix)) {
+            // acquisition paths and names outside the index can't be resolved from it
+            return TemplateLookupStrategy.DEFAULT_2_3_0.lookup(ctx);
+        }
+
+        final Locale locale = ctx.getTemplateLocale();
+        if (locale != null) {
+            final int extension = templateName.lastIndexOf('.');
+            final String prefix = extension == -1 ? templateName : templateName.substring(0, extension);
+            final String extensionSuffix = extension == -1 ? "" : templateName.substring(extension);
+
+            String localeName = locale.toString();
+            while (!localeName.isEmpty()) {
+                final String localizedName = prefix + "_" + localeName + extensionSuffix;
+                if (templates.contains(localizedName)) {
+                    return ctx.lookupWithAcquisitionStrategy(localizedName);
+                }
+                final int separator = localeName.lastIndexOf('_');
+                localeName = separator == -1 ? "" : localeName.substring(0, separator);
+            }
+        }
+
+        if (templates.contains(templateName)) {
+            return ctx.lookupWithAcquisitionStrategy(templateName);
+        }
+        return ctx.createNegativeLookupResult();
+    }
+}
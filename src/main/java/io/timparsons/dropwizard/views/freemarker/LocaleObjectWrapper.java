@@ -0,0 +1,71 @@
+package io.timparsons.dropwizard.views.freemarker;
+
+import java.util.List;
+
+import freemarker.core.HTMLOutputFormat;
+import freemarker.ext.beans.BeansWrapper;
+import freemarker.ext.beans.StringModel;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.Version;
+import freemarker.template.utility.DeepUnwrap;
+import io.timparsons.dropwizard.views.config.LocaleMap.LocaleMapValue;
+
+/**
+ * Exposes the cached HTML form of catalog values to templates as HTML
+ * markup, so {@code ${messageBundle.key.html}} and
+ * {@code ${messageBundle.key.htmlParams(user.name)}} are written as-is instead
+ * of being escaped again on every render.
+ */
+public class LocaleObjectWrapper extends DefaultObjectWrapper {
+
+    public LocaleObjectWrapper(final Version incompatibleImprovements) {
+        super(incompatibleImprovements);
+    }
+
+    @Override
+    protected TemplateModel handleUnknownType(final Object obj) throws TemplateModelException {
+        if (obj instanceof LocaleMapValue) {
+            return new LocaleMapValueModel((LocaleMapValue) obj, this);
+        }
+        return super.handleUnknownType(obj);
+    }
+
+    private static class LocaleMapValueModel extends StringModel {
+        private final LocaleMapValue value;
+
+        LocaleMapValueModel(final LocaleMapValue value, final BeansWrapper wrapper) {
+            super(value, wrapper);
+            this.value = value;
+        }
+
+        @Override
+        public TemplateModel get(final String key) throws TemplateModelException {
+            if ("html".equals(key)) {
+                return HTMLOutputFormat.INSTANCE.fromMarkup(value.html());
+            } else if ("htmlParams".equals(key)) {
+                return new HtmlParamsMethod(value);
+            }
+            return super.get(key);
+        }
+    }
+
+    private static class HtmlParamsMethod implements TemplateMethodModelEx {
+        private final LocaleMapValue value;
+
+        HtmlParamsMethod(final LocaleMapValue value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object exec(@SuppressWarnings("rawtypes") final List arguments) throws TemplateModelException {
+            final String[] params = new String[arguments.size()];
+            for (int i = 0; i < params.length; i++) {
+                params[i] = String.valueOf(DeepUnwrap.unwrap((TemplateModel) arguments.get(i)));
+            }
+            return HTMLOutputFormat.INSTANCE.fromMarkup(value.htmlParams(params));
+        }
+    }
+}
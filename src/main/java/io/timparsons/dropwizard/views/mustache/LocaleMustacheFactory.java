@@ -0,0 +1,287 @@
+package io.timparsons.dropwizard.views.mustache;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.DefaultMustacheVisitor;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.MustacheResolver;
+import com.github.mustachejava.MustacheVisitor;
+import com.github.mustachejava.TemplateContext;
+import com.github.mustachejava.codes.DefaultCode;
+import com.github.mustachejava.codes.ValueCode;
+import com.github.mustachejava.codes.WriteCode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.dropwizard.util.Duration;
+import io.timparsons.dropwizard.views.config.LocaleMap.LocaleMapValue;
+import io.timparsons.dropwizard.views.fragment.FragmentCache;
+import io.timparsons.dropwizard.views.writer.PreEncodedWriter;
+
+/**
+ * A {@link DefaultMustacheFactory} whose escaped {@code {{value}}} tags write
+ * catalog values escaped once per value, with the factory's own
+ * {@link #encode(String, Writer)}, instead of escaping them again on every
+ * render.
+ * <p>
+ * Templates can also place {@code {{%FLUSH}}} where the output so far should
+ * be sent to the client, e.g. right after {@code </head>}, and cache the
+ * output of a section per key and locale with
+ * {@code {{#fragment:navigation}}...{{/fragment:navigation}}}, or
+ * {@code {{#fragment:navigation:5m}}...{{/fragment:navigation:5m}}} to give it
+ * its own TTL, capped at the cache's maximum.
+ */
+public class LocaleMustacheFactory extends DefaultMustacheFactory {
+    private static final String FRAGMENT_PREFIX = "fragment:";
+
+    private final FragmentCache fragmentCache;
+    private final PreEncodedWriter.SegmentCache segmentCache;
+    private final Set<String> compiledTemplates = ConcurrentHashMap.newKeySet();
+    private final Cache<LocaleMapValue, String> encodedValues = CacheBuilder.newBuilder().concurrencyLevel(128)
+            .weakKeys().build();
+
+    /**
+     * The bottom-most scope of every render, telling fragments which locale
+     * the view is rendered for. It has no accessible members, so it can never
+     * be matched by a template variable.
+     */
+    static final class RenderScope {
+        private final Locale locale;
+
+        RenderScope(final Locale locale) {
+            this.locale = locale;
+        }
+    }
+
+    public LocaleMustacheFactory(final MustacheResolver mustacheResolver, final FragmentCache fragmentCache) {
+        this(mustacheResolver, fragmentCache, null);
+    }
+
+    /**
+     * @param segmentCache
+     *            registers the literal text of compiled templates for a
+     *            {@link PreEncodedWriter}, or {@code null} to not register it
+     */
+    public LocaleMustacheFactory(final MustacheResolver mustacheResolver, final FragmentCache fragmentCache,
+            final PreEncodedWriter.SegmentCache segmentCache) {
+        super(mustacheResolver);
+        this.fragmentCache = fragmentCache;
+        this.segmentCache = segmentCache;
+    }
+
+    @Override
+    public Mustache compile(final String name) {
+        final Mustache mustache = super.compile(name);
+        compiledTemplates.add(name);
+        return mustache;
+    }
+
+    /**
+     * @return the catalog value as {@link #encode(String, Writer)} writes it,
+     *         escaped on first use
+     */
+    String encode(final LocaleMapValue value) {
+        try {
+            return encodedValues.get(value, () -> {
+                final StringWriter encoded = new StringWriter();
+                encode(value.toString(), encoded);
+                return encoded.toString();
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new MustacheException("Failed to encode value", e.getCause());
+        }
+    }
+
+    /**
+     * Compiles the templates that were compiled by {@code previous}.
+     */
+    public void compileTemplates(final LocaleMustacheFactory previous) {
+        for (String name : previous.compiledTemplates) {
+            try {
+                compile(name);
+            } catch (MustacheException e) {
+                // fails again, and is reported, when the template is rendered
+            }
+        }
+    }
+
+    @Override
+    public MustacheVisitor createMustacheVisitor() {
+        return new LocaleMustacheVisitor(this, fragmentCache, segmentCache);
+    }
+
+    private static class LocaleMustacheVisitor extends DefaultMustacheVisitor {
+        private final FragmentCache fragmentCache;
+        private final PreEncodedWriter.SegmentCache segmentCache;
+
+        LocaleMustacheVisitor(final DefaultMustacheFactory df, final FragmentCache fragmentCache,
+                final PreEncodedWriter.SegmentCache segmentCache) {
+            super(df);
+            this.fragmentCache = fragmentCache;
+            this.segmentCache = segmentCache;
+            addPragmaHandler("flush", (tc, pragma, args) -> new FlushCode(tc, df));
+        }
+
+        @Override
+        public void write(final TemplateContext tc, final String text) {
+            if (segmentCache == null) {
+                super.write(tc, text);
+            } else if (text.length() > 0) {
+                // its own code rather than appended to the previous one, so it's written in one piece
+                list.add(new StaticTextCode(tc, df, text, segmentCache));
+            }
+        }
+
+        @Override
+        public void value(final TemplateContext tc, final String variable, final boolean encoded) {
+            list.add(new LocaleValueCode(tc, df, variable, encoded));
+        }
+
+        @Override
+        public void iterable(final TemplateContext tc, final String variable, final Mustache mustache) {
+            if (variable.startsWith(FRAGMENT_PREFIX)) {
+                list.add(new FragmentCode(tc, df, mustache, variable, fragmentCache));
+            } else {
+                super.iterable(tc, variable, mustache);
+            }
+        }
+    }
+
+    private static class LocaleValueCode extends ValueCode {
+        // ValueCode keeps its own flag private
+        private final boolean encoded;
+
+        LocaleValueCode(final TemplateContext tc, final DefaultMustacheFactory df, final String variable,
+                final boolean encoded) {
+            super(tc, df, variable, encoded);
+            this.encoded = encoded;
+        }
+
+        @Override
+        public Writer execute(final Writer writer, final List<Object> scopes) {
+            if (!encoded) {
+                return super.execute(writer, scopes);
+            }
+
+            final Object object = get(scopes);
+            if (object == null || object instanceof Function || object instanceof Callable) {
+                // lambdas and missing values keep the stock behaviour
+                return super.execute(writer, scopes);
+            }
+
+            try {
+                if (object instanceof LocaleMapValue) {
+                    writer.write(((LocaleMustacheFactory) df).encode((LocaleMapValue) object));
+                } else {
+                    execute(writer, oh.stringify(object));
+                }
+            } catch (IOException e) {
+                throw new MustacheException("Failed to write value for " + name, e);
+            }
+            return appendText(run(writer, scopes));
+        }
+    }
+
+    /**
+     * Literal template text, written as the registered string so a
+     * {@link PreEncodedWriter} can write it pre-encoded.
+     */
+    private static class StaticTextCode extends WriteCode {
+        private final PreEncodedWriter.SegmentCache segmentCache;
+
+        StaticTextCode(final TemplateContext tc, final DefaultMustacheFactory df, final String text,
+                final PreEncodedWriter.SegmentCache segmentCache) {
+            super(tc, df, text);
+            this.segmentCache = segmentCache;
+            segmentCache.register(appended);
+        }
+
+        @Override
+        public void append(final String text) {
+            super.append(text);
+            // null while the super constructor appends the initial text
+            if (segmentCache != null) {
+                segmentCache.register(appended);
+            }
+        }
+
+        @Override
+        public Writer execute(final Writer writer, final List<Object> scopes) {
+            if (appended != null) {
+                try {
+                    writer.write(appended);
+                } catch (IOException e) {
+                    throw new MustacheException("Failed to write text", e);
+                }
+            }
+            return writer;
+        }
+    }
+
+    private static class FlushCode extends DefaultCode {
+
+        FlushCode(final TemplateContext tc, final DefaultMustacheFactory df) {
+            super(tc, df, null, "flush", "%");
+        }
+
+        @Override
+        public Writer execute(final Writer writer, final List<Object> scopes) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new MustacheException("Failed to flush", e);
+            }
+            return super.execute(writer, scopes);
+        }
+    }
+
+    private static class FragmentCode extends DefaultCode {
+        private final FragmentCache fragmentCache;
+        private final String key;
+        private final Duration ttl;
+
+        FragmentCode(final TemplateContext tc, final DefaultMustacheFactory df, final Mustache mustache,
+                final String variable, final FragmentCache fragmentCache) {
+            super(tc, df, mustache, variable, "#");
+            this.fragmentCache = fragmentCache;
+
+            final String[] parts = variable.substring(FRAGMENT_PREFIX.length()).split(":", 2);
+            this.key = parts[0];
+            // parsed and capped once, when the template is compiled
+            this.ttl = parts.length > 1 ? fragmentCache.capTtl(key, Duration.parse(parts[1])) : null;
+        }
+
+        @Override
+        public Writer execute(final Writer writer, final List<Object> scopes) {
+            try {
+                writer.write(fragmentCache.get(key, getLocale(scopes), ttl, () -> {
+                    final StringWriter fragmentWriter = new StringWriter();
+                    run(fragmentWriter, scopes);
+                    return fragmentWriter.toString();
+                }));
+            } catch (IOException | ExecutionException e) {
+                throw new MustacheException("Failed to render fragment " + key, e);
+            }
+            return appendText(writer);
+        }
+
+        private static Locale getLocale(final List<Object> scopes) {
+            if (!scopes.isEmpty() && scopes.get(0) instanceof RenderScope) {
+                return ((RenderScope) scopes.get(0)).locale;
+            }
+            return Locale.getDefault();
+        }
+    }
+}
@@ -7,33 +7,49 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
-import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheFactory;
 import com.github.mustachejava.MustacheResolver;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import io.dropwizard.util.Duration;
 import io.dropwizard.views.View;
-import io.dropwizard.views.ViewRenderer;
 import io.timparsons.dropwizard.views.LocaleView;
+import io.timparsons.dropwizard.views.LocaleViewRenderer;
 import io.timparsons.dropwizard.views.config.LocaleConfigurationUtility;
 import io.timparsons.dropwizard.views.config.LocaleMap;
 import io.timparsons.dropwizard.views.config.mustache.MustacheLocaleConfiguration;
+import io.timparsons.dropwizard.views.fragment.FragmentCache;
+import io.timparsons.dropwizard.views.writer.PreEncodedWriter;
 
-public class MustacheLocaleViewRenderer implements ViewRenderer {
+public class MustacheLocaleViewRenderer implements LocaleViewRenderer {
     private final LocaleLoader localeLoader;
+    private final PreEncodedWriter.SegmentCache segmentCache = new PreEncodedWriter.SegmentCache();
+    private boolean preEncodeStaticText = false;
+    private FragmentCache fragmentCache = new FragmentCache();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mustache-locale-refresh-%d").build());
 
     private LoadingCache<Class<? extends View>, MustacheFactory> factories;
     private LoadingCache<Pair<Class<? extends LocaleView>, Locale>, LocaleMap> bundleCache;
@@ -65,13 +81,25 @@ public class MustacheLocaleViewRenderer implements ViewRenderer {
         }
     }
 
+    private class FactoryLoader extends CacheLoader<Class<? extends View>, MustacheFactory> {
+        @Override
+        public MustacheFactory load(Class<? extends View> key) throws Exception {
+            return new LocaleMustacheFactory(new PerClassMustacheResolver(key), fragmentCache,
+                    preEncodeStaticText ? segmentCache : null);
+        }
+
+        @Override
+        public ListenableFuture<MustacheFactory> reload(Class<? extends View> key, MustacheFactory oldValue)
+                throws Exception {
+            final LocaleMustacheFactory factory = (LocaleMustacheFactory) load(key);
+            // compile what the old factory served before it's swapped out, not on the next request
+            factory.compileTemplates((LocaleMustacheFactory) oldValue);
+            return Futures.immediateFuture(factory);
+        }
+    }
+
     public MustacheLocaleViewRenderer() {
-        this.factories = CacheBuilder.newBuilder().build(new CacheLoader<Class<? extends View>, MustacheFactory>() {
-            @Override
-            public MustacheFactory load(Class<? extends View> key) throws Exception {
-                return new DefaultMustacheFactory(new PerClassMustacheResolver(key));
-            }
-        });
+        this.factories = CacheBuilder.newBuilder().build(new FactoryLoader());
 
         localeLoader = new LocaleLoader();
     }
@@ -94,41 +122,44 @@ public class MustacheLocaleViewRenderer implements ViewRenderer {
             }
             final Mustache template = factories.get(view.getClass()).compile(view.getTemplateName());
             final Charset charset = view.getCharset().orElse(StandardCharsets.UTF_8);
-            try (OutputStreamWriter writer = new OutputStreamWriter(output, charset)) {
-                template.execute(writer, view);
+            try (Writer writer = createWriter(output, charset)) {
+                final List<Object> scopes = new ArrayList<>(
+                        Arrays.asList(new LocaleMustacheFactory.RenderScope(locale), view));
+                template.execute(writer, scopes);
             }
         } catch (Throwable e) {
             throw new RuntimeException("Mustache template error: " + view.getTemplateName(), e);
         }
     }
 
+    private Writer createWriter(OutputStream output, Charset charset) {
+        if (preEncodeStaticText) {
+            return new PreEncodedWriter(output, charset, segmentCache);
+        }
+        return new OutputStreamWriter(output, charset);
+    }
+
     @Override
     public void configure(Map<String, String> baseConfig) {
         localeLoader
                 .setConfig(new MustacheLocaleConfiguration(baseConfig.get("locale"), baseConfig.get("defaultLocale")));
+        preEncodeStaticText = Boolean.parseBoolean(baseConfig.get("preEncodeStaticText"));
+        fragmentCache = FragmentCache.fromConfig(baseConfig);
 
-        boolean devMode = false;
-
-        if (baseConfig.containsKey("STAGE")) {
-            devMode = baseConfig.get("STAGE").equalsIgnoreCase("DEVELOPMENT");
-        }
+        // stale entries keep being served while they are reloaded in the background
+        final Optional<Duration> refreshInterval = LocaleConfigurationUtility.getRefreshInterval(baseConfig);
 
         CacheBuilder factoriesBuilder = CacheBuilder.newBuilder().concurrencyLevel(128);
-        if (devMode) {
-            factoriesBuilder.expireAfterWrite(1L, TimeUnit.SECONDS);
+        if (refreshInterval.isPresent()) {
+            factoriesBuilder.refreshAfterWrite(refreshInterval.get().getQuantity(), refreshInterval.get().getUnit());
         }
-        this.factories = factoriesBuilder.build(new CacheLoader<Class<? extends View>, MustacheFactory>() {
-            @Override
-            public MustacheFactory load(Class<? extends View> key) throws Exception {
-                return new DefaultMustacheFactory(new PerClassMustacheResolver(key));
-            }
-        });
+        this.factories = factoriesBuilder.build(CacheLoader.asyncReloading(new FactoryLoader(), refreshExecutor));
 
         CacheBuilder bundleBuilder = CacheBuilder.newBuilder().concurrencyLevel(128);
-        if (devMode) {
-            bundleBuilder.expireAfterWrite(1L, TimeUnit.SECONDS);
+        if (refreshInterval.isPresent()) {
+            bundleBuilder.refreshAfterWrite(refreshInterval.get().getQuantity(), refreshInterval.get().getUnit());
         }
-        this.bundleCache = bundleBuilder.build(localeLoader);
+        this.bundleCache = bundleBuilder.build(CacheLoader.asyncReloading(localeLoader, refreshExecutor));
     }
 
     @Override
@@ -136,9 +167,68 @@ public class MustacheLocaleViewRenderer implements ViewRenderer {
         return ".mustache";
     }
 
+    @Override
     public void clearCache() {
         factories.invalidateAll();
         bundleCache.invalidateAll();
+        segmentCache.clear();
+        fragmentCache.invalidate(null);
+    }
+
+    @Override
+    public Object[] getRenderVersion(View view, Locale locale) throws IOException {
+        final MustacheFactory factory = factories.getUnchecked(view.getClass());
+        if (LocaleView.class.isInstance(view)) {
+            final Class<? extends LocaleView> viewClass = view.getClass().asSubclass(LocaleView.class);
+            return new Object[] { factory, bundleCache
+                    .getUnchecked(new ImmutablePair<Class<? extends LocaleView>, Locale>(viewClass, locale)) };
+        }
+        return new Object[] { factory };
+    }
+
+    @Override
+    public MustacheLocaleConfiguration getLocaleConfiguration() {
+        return localeLoader.config;
+    }
+
+    @Override
+    public void reloadLocale(String language, String bundle) {
+        MustacheLocaleConfiguration config = getLocaleConfiguration();
+        config.reload(language, bundle);
+        LocaleConfigurationUtility.reloadViewBundles(bundleCache, localeLoader, language, bundle,
+                config.getDefaultLocale());
+        // only now that the new bundles are in place, or pages would be cached again from the old ones
+        fragmentCache.invalidate(config.getDefaultLocale().getLanguage().equals(language) ? null : language);
+    }
+
+    @Override
+    public void invalidateBundles(String language) {
+        LocaleConfigurationUtility.invalidateViewBundles(bundleCache, language);
+    }
+
+    @Override
+    public void refreshBundles(String language) {
+        LocaleConfigurationUtility.refreshViewBundles(bundleCache, language);
+    }
+
+    @Override
+    public void invalidateTemplates() {
+        factories.invalidateAll();
+        segmentCache.clear();
+        fragmentCache.invalidate(null);
+    }
+
+    @Override
+    public void refreshTemplates() {
+        for (Class<? extends View> key : factories.asMap().keySet()) {
+            factories.refresh(key);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCacheSizes() {
+        return ImmutableMap.of("factories", factories.size(), "bundles", bundleCache.size(), "fragments",
+                fragmentCache.size());
     }
 
     class PerClassMustacheResolver implements MustacheResolver {
@@ -0,0 +1,276 @@
+package io.timparsons.dropwizard.views.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+
+import com.google.common.collect.Table;
+
+import io.timparsons.dropwizard.views.LocaleView;
+import io.timparsons.dropwizard.views.config.Bundles;
+import io.timparsons.dropwizard.views.config.LocaleConfigurationUtility;
+import io.timparsons.dropwizard.views.config.LocaleMap;
+
+/**
+ * Generates a {@code <View>Messages} class next to every {@link Bundles}
+ * annotated view. It has one integer constant and one getter per message key
+ * of the view's bundles, backed by an
+ * {@link io.timparsons.dropwizard.views.config.IndexedLocaleMap}. Referencing a
+ * key that doesn't exist in the catalog is then a compile error, and lookups
+ * are array accesses instead of hash lookups.
+ * <p>
+ * The catalog is read from the directory given with
+ * {@code -AlocaleDirectory=<path>}; without that option nothing is generated.
+ * Keys that are missing for some of the locales are reported as warnings.
+ */
+@SupportedAnnotationTypes("io.timparsons.dropwizard.views.config.Bundles")
+@SupportedOptions(MessagesProcessor.LOCALE_DIRECTORY_OPTION)
+public class MessagesProcessor extends AbstractProcessor {
+    static final String LOCALE_DIRECTORY_OPTION = "localeDirectory";
+    private static final String SUFFIX = "Messages";
+
+    private Table<String, String, LocaleMap> localeTable;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        final String directory = processingEnv.getOptions().get(LOCALE_DIRECTORY_OPTION);
+        if (directory == null || annotations.isEmpty()) {
+            return false;
+        }
+
+        if (localeTable == null) {
+            try {
+                localeTable = LocaleConfigurationUtility.getLocaleFiles(directory);
+            } catch (RuntimeException e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR,
+                        "Unable to read locale directory " + directory + ": " + e.getMessage());
+                return false;
+            }
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(Bundles.class)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                generate((TypeElement) element);
+            }
+        }
+        return false;
+    }
+
+    private void generate(final TypeElement view) {
+        final Set<String> keys = new TreeSet<>();
+        for (String bundle : getViewBundles(view)) {
+            if (!localeTable.containsColumn(bundle)) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, "Unknown bundle " + bundle, view);
+                return;
+            }
+            final Set<String> bundleKeys = new TreeSet<>();
+            for (LocaleMap localeMap : localeTable.column(bundle).values()) {
+                bundleKeys.addAll(localeMap.keySet());
+            }
+            for (Map.Entry<String, LocaleMap> language : localeTable.column(bundle).entrySet()) {
+                for (String key : bundleKeys) {
+                    if (!language.getValue().containsKey(key)) {
+                        processingEnv.getMessager().printMessage(Kind.WARNING, "Message " + key
+                                + " is missing from bundle " + bundle + " for language " + language.getKey(), view);
+                    }
+                }
+            }
+            keys.addAll(bundleKeys);
+        }
+
+        final List<String> keyList = new ArrayList<>(keys);
+        final Map<String, String> constants = new HashMap<>();
+        for (String key : keyList) {
+            final String constant = toConstantName(key);
+            if (constants.containsKey(constant)) {
+                processingEnv.getMessager().printMessage(Kind.ERROR,
+                        "Messages " + constants.get(constant) + " and " + key + " map to the same name " + constant, view);
+                return;
+            }
+            if (toGetterName(key).equals("getClass")) {
+                processingEnv.getMessager().printMessage(Kind.ERROR,
+                        "Message " + key + " would hide Object.getClass()", view);
+                return;
+            }
+            constants.put(constant, key);
+        }
+
+        final String packageName = processingEnv.getElementUtils().getPackageOf(view).getQualifiedName().toString();
+        final String className = view.getSimpleName() + SUFFIX;
+        final String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+
+        try (PrintWriter out = new PrintWriter(
+                processingEnv.getFiler().createSourceFile(qualifiedName, view).openWriter())) {
+            writeSource(out, packageName, className, view, keyList);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "Unable to write " + qualifiedName + ": " + e, view);
+        }
+    }
+
+    private void writeSource(final PrintWriter out, final String packageName, final String className,
+            final TypeElement view, final List<String> keys) {
+        if (!packageName.isEmpty()) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+        out.println("import io.timparsons.dropwizard.views.config.IndexedLocaleMap;");
+        out.println("import io.timparsons.dropwizard.views.config.LocaleMap;");
+        out.println("import io.timparsons.dropwizard.views.config.LocaleMap.LocaleMapValue;");
+        out.println();
+        out.println("/**");
+        out.println(" * Messages of {@link " + view.getSimpleName() + "}. Generated by "
+                + MessagesProcessor.class.getSimpleName() + ", do not edit.");
+        out.println(" */");
+        out.println("public final class " + className + " {");
+        for (int i = 0; i < keys.size(); i++) {
+            out.println("    public static final int " + toConstantName(keys.get(i)) + " = " + i + ";");
+        }
+        out.println();
+        // lower case, so no constant generated by toConstantName can collide with it
+        out.println("    private static final String[] keys = {");
+        for (String key : keys) {
+            out.println("        \"" + escapeJava(key) + "\",");
+        }
+        out.println("    };");
+        out.println();
+        out.println("    private final IndexedLocaleMap messages;");
+        out.println();
+        out.println("    public " + className + "(LocaleMap messageBundle) {");
+        out.println("        this.messages = messageBundle.index(keys);");
+        out.println("    }");
+        out.println();
+        out.println("    public LocaleMapValue get(int index) {");
+        out.println("        return messages.get(index);");
+        out.println("    }");
+        for (String key : keys) {
+            out.println();
+            out.println("    /** <code>" + escapeJavadoc(key) + "</code> */");
+            out.println("    public LocaleMapValue " + toGetterName(key) + "() {");
+            out.println("        return messages.get(" + toConstantName(key) + ");");
+            out.println("    }");
+        }
+        out.println("}");
+    }
+
+    /**
+     * Mirrors {@link LocaleConfigurationUtility#getViewBundles(Class)} on the
+     * compile-time model of the view.
+     */
+    private List<String> getViewBundles(final TypeElement view) {
+        final List<String> viewBundles = new LinkedList<>();
+
+        TypeElement currentClass = view;
+        while (currentClass != null
+                && !currentClass.getQualifiedName().contentEquals(LocaleView.class.getCanonicalName())) {
+            final Bundles bundlesAnnon = currentClass.getAnnotation(Bundles.class);
+
+            if (bundlesAnnon != null) {
+                final String[] bundles = bundlesAnnon.value();
+                for (int i = 0; i < bundles.length; i++) {
+                    viewBundles.add(i, bundles[i]);
+                }
+            }
+
+            final TypeMirror superclass = currentClass.getSuperclass();
+            currentClass = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+
+        return viewBundles;
+    }
+
+    static String toConstantName(final String key) {
+        final StringBuilder name = new StringBuilder();
+        char previous = '_';
+        for (char c : key.toCharArray()) {
+            if (!Character.isLetterOrDigit(c)) {
+                c = '_';
+            } else if (Character.isUpperCase(c) && Character.isLowerCase(previous)) {
+                name.append('_');
+            }
+            if (c != '_' || previous != '_') {
+                name.append(Character.toUpperCase(c));
+            }
+            previous = c;
+        }
+        if (name.length() == 0 || Character.isDigit(name.charAt(0))) {
+            name.insert(0, "KEY_");
+        }
+        return name.toString();
+    }
+
+    static String toGetterName(final String key) {
+        final StringBuilder name = new StringBuilder("get");
+        for (String part : toConstantName(key).split("_")) {
+            if (!part.isEmpty()) {
+                name.append(part.charAt(0)).append(part.substring(1).toLowerCase());
+            }
+        }
+        return name.toString();
+    }
+
+    private static String escapeJava(final String value) {
+        final StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+            case '\\':
+                escaped.append("\\\\");
+                break;
+            case '"':
+                escaped.append("\\\"");
+                break;
+            case '\n':
+                escaped.append("\\n");
+                break;
+            case '\r':
+                escaped.append("\\r");
+                break;
+            case '\t':
+                escaped.append("\\t");
+                break;
+            default:
+                if (Character.isISOControl(c)) {
+                    // octal, as unicode escapes are translated before the literal is parsed
+                    escaped.append(String.format("\\%03o", (int) c));
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Escapes a key for a Javadoc comment: on one line, without anything that
+     * ends the comment or starts a tag.
+     */
+    private static String escapeJavadoc(final String value) {
+        return escapeJava(value).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("@", "&#64;").replace("*/", "*&#47;");
+    }
+}
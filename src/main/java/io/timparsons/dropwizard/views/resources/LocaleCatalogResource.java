@@ -0,0 +1,179 @@
+package io.timparsons.dropwizard.views.resources;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Table;
+import com.google.common.hash.Hashing;
+
+import io.dropwizard.util.Duration;
+import io.timparsons.dropwizard.views.LocaleViewRenderer;
+import io.timparsons.dropwizard.views.config.LocaleConfiguration;
+import io.timparsons.dropwizard.views.config.LocaleMap;
+import io.timparsons.dropwizard.views.config.LocaleMap.LocaleMapValue;
+import io.timparsons.dropwizard.views.writer.ContentEncodings;
+
+/**
+ * Serves message bundles as a JSON object of key to raw message, for pages
+ * that render text on the client. {@code GET /locale/common,checkout} merges
+ * the bundles left to right for the locale given by the {@code locale} query
+ * parameter, or the {@code Accept-Language} header.
+ * <p>
+ * The JSON and its gzip-compressed copy are built once per catalog version and
+ * served with a strong ETag, so they are only serialized again after the
+ * catalog is reloaded.
+ */
+@Path("/locale")
+@Produces(MediaType.APPLICATION_JSON)
+public class LocaleCatalogResource {
+    public static final Duration DEFAULT_MAX_AGE = Duration.days(1);
+
+    private static final long MAX_CATALOGS = 1024L;
+    private static final Splitter BUNDLE_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private final LocaleViewRenderer renderer;
+    private final ObjectMapper objectMapper;
+    private final CacheControl cacheControl;
+    private final Cache<Pair<String, String>, SerializedCatalog> catalogs;
+
+    private static final class SerializedCatalog {
+        private final Table<String, String, LocaleMap> source;
+        private final byte[] identity;
+        private final byte[] gzip;
+        private final EntityTag identityTag;
+        private final EntityTag gzipTag;
+
+        SerializedCatalog(final Table<String, String, LocaleMap> source, final byte[] identity, final byte[] gzip) {
+            final String hash = Hashing.sha256().hashBytes(identity).toString();
+            this.source = source;
+            this.identity = identity;
+            this.gzip = gzip;
+            this.identityTag = new EntityTag(hash);
+            this.gzipTag = new EntityTag(hash + "-" + ContentEncodings.GZIP);
+        }
+    }
+
+    public LocaleCatalogResource(final LocaleViewRenderer renderer, final ObjectMapper objectMapper) {
+        this(renderer, objectMapper, DEFAULT_MAX_AGE);
+    }
+
+    public LocaleCatalogResource(final LocaleViewRenderer renderer, final ObjectMapper objectMapper,
+            final Duration maxAge) {
+        this.renderer = renderer;
+        this.objectMapper = objectMapper;
+        this.cacheControl = new CacheControl();
+        this.cacheControl.setPrivate(false);
+        this.cacheControl.setNoTransform(false);
+        this.cacheControl.setMaxAge((int) maxAge.toSeconds());
+        this.catalogs = CacheBuilder.newBuilder().concurrencyLevel(128).maximumSize(MAX_CATALOGS).build();
+    }
+
+    @GET
+    @Path("/{bundles}")
+    public Response getCatalog(@PathParam("bundles") final String bundles, @QueryParam("locale") final String locale,
+            @Context final HttpHeaders headers, @Context final Request request) throws IOException {
+        final Locale resolved = locale == null ? detectLocale(headers) : Locale.forLanguageTag(locale);
+        final SerializedCatalog catalog = getSerializedCatalog(bundles, resolved);
+
+        final boolean gzip = catalog.gzip != null && ContentEncodings.acceptsGzip(headers);
+        final EntityTag tag = gzip ? catalog.gzipTag : catalog.identityTag;
+
+        ResponseBuilder response = request.evaluatePreconditions(tag);
+        if (response == null) {
+            response = Response.ok(gzip ? catalog.gzip : catalog.identity);
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, ContentEncodings.GZIP);
+            }
+        }
+        return response.tag(tag)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE)
+                .build();
+    }
+
+    public void clearCache() {
+        catalogs.invalidateAll();
+    }
+
+    public long getCacheSize() {
+        return catalogs.size();
+    }
+
+    private SerializedCatalog getSerializedCatalog(final String bundles, final Locale locale) throws IOException {
+        final LocaleConfiguration configuration = renderer.getLocaleConfiguration();
+        final Table<String, String, LocaleMap> source = configuration.getLocaleTable();
+        final Pair<String, String> key = new ImmutablePair<>(bundles, locale.getLanguage());
+
+        // reloads and development refreshes swap the whole table, which retires
+        // everything serialized from the old one
+        SerializedCatalog catalog = catalogs.getIfPresent(key);
+        if (catalog == null || catalog.source != source) {
+            catalog = serialize(configuration, source, bundles, locale);
+            catalogs.put(key, catalog);
+        }
+        return catalog;
+    }
+
+    private SerializedCatalog serialize(final LocaleConfiguration configuration,
+            final Table<String, String, LocaleMap> source, final String bundles, final Locale locale)
+            throws IOException {
+        final List<LocaleMap> maps = new ArrayList<>();
+        for (String bundle : BUNDLE_SPLITTER.split(bundles)) {
+            final LocaleMap map = configuration.getLocaleBundle(locale, bundle);
+            if (map == null) {
+                throw new NotFoundException("Unknown locale bundle " + bundle);
+            }
+            maps.add(map);
+        }
+        if (maps.isEmpty()) {
+            throw new NotFoundException("No locale bundle requested");
+        }
+
+        // sorted so the same catalog always serializes to the same bytes and tag
+        final Map<String, String> messages = new TreeMap<>();
+        for (LocaleMap map : maps) {
+            for (Map.Entry<String, LocaleMapValue> entry : map.entrySet()) {
+                messages.put(entry.getKey(), entry.getValue().toString());
+            }
+        }
+
+        final byte[] identity = objectMapper.writeValueAsBytes(messages);
+        return new SerializedCatalog(source, identity, ContentEncodings.gzip(identity));
+    }
+
+    private Locale detectLocale(final HttpHeaders headers) {
+        for (Locale locale : headers.getAcceptableLanguages()) {
+            if (!locale.toString().contains("*")) {
+                return locale;
+            }
+        }
+        return Locale.getDefault();
+    }
+}
@@ -0,0 +1,82 @@
+package io.timparsons.dropwizard.views.tasks;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+
+import java.io.PrintWriter;
+
+import com.google.common.collect.ImmutableMultimap;
+
+import io.dropwizard.servlets.tasks.Task;
+import io.timparsons.dropwizard.views.LocaleViewRenderer;
+import io.timparsons.dropwizard.views.writer.ViewMessageBodyWriter;
+
+/**
+ * Invalidates or re-warms the renderers' caches without touching the catalog.
+ * <p>
+ * {@code POST /tasks/locale-cache?action=refresh&cache=bundles&locale=de}
+ * <ul>
+ * <li>{@code action}: {@code refresh} (default) rebuilds entries in the
+ * background while serving the current ones, {@code invalidate} drops them</li>
+ * <li>{@code cache}: {@code bundles}, {@code templates}, {@code views}
+ * (precompressed output) or {@code all} (default)</li>
+ * <li>{@code locale}: limits bundles and views to one language</li>
+ * </ul>
+ */
+public class LocaleCacheTask extends Task {
+    private final Iterable<LocaleViewRenderer> renderers;
+    private final ViewMessageBodyWriter viewMessageBodyWriter;
+
+    public LocaleCacheTask(final Iterable<LocaleViewRenderer> renderers,
+            final ViewMessageBodyWriter viewMessageBodyWriter) {
+        super("locale-cache");
+        this.renderers = renderers;
+        this.viewMessageBodyWriter = viewMessageBodyWriter;
+    }
+
+    @Override
+    public void execute(final ImmutableMultimap<String, String> parameters, final PrintWriter output)
+            throws Exception {
+        final String action = firstNonNull(LocaleTasks.getParameter(parameters, "action"), "refresh");
+        final String cache = firstNonNull(LocaleTasks.getParameter(parameters, "cache"), "all");
+        final String language = LocaleTasks.getLanguage(parameters);
+        final boolean invalidate;
+        if (action.equals("invalidate")) {
+            invalidate = true;
+        } else if (action.equals("refresh")) {
+            invalidate = false;
+        } else {
+            throw new IllegalArgumentException("Unknown action " + action);
+        }
+
+        final boolean all = cache.equals("all");
+        if (!all && !cache.equals("bundles") && !cache.equals("templates") && !cache.equals("views")) {
+            throw new IllegalArgumentException("Unknown cache " + cache);
+        }
+
+        for (LocaleViewRenderer renderer : renderers) {
+            if (all || cache.equals("templates")) {
+                if (invalidate) {
+                    renderer.invalidateTemplates();
+                } else {
+                    renderer.refreshTemplates();
+                }
+                output.printf("%s: %s templates%n", renderer.getSuffix(), action);
+            }
+            if (all || cache.equals("bundles")) {
+                if (invalidate) {
+                    renderer.invalidateBundles(language);
+                } else {
+                    renderer.refreshBundles(language);
+                }
+                output.printf("%s: %s bundles locale=%s%n", renderer.getSuffix(), action,
+                        LocaleTasks.describe(language));
+            }
+        }
+        if (all || cache.equals("views")) {
+            // precompressed output is rendered again on its next request either way
+            viewMessageBodyWriter.invalidate(language);
+            output.printf("views: invalidate locale=%s%n", LocaleTasks.describe(language));
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,64 @@
+package io.timparsons.dropwizard.views.tasks;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Table;
+
+import io.dropwizard.servlets.tasks.Task;
+import io.timparsons.dropwizard.views.LocaleViewRenderer;
+import io.timparsons.dropwizard.views.config.LocaleConfigurationUtility;
+import io.timparsons.dropwizard.views.config.LocaleMap;
+import io.timparsons.dropwizard.views.writer.ViewMessageBodyWriter;
+
+/**
+ * Dumps key counts and estimated retained bytes of the catalog per language
+ * and bundle, and the size of every cache.
+ * <p>
+ * {@code POST /tasks/locale-stats}
+ */
+public class LocaleStatisticsTask extends Task {
+    private final Iterable<LocaleViewRenderer> renderers;
+    private final ViewMessageBodyWriter viewMessageBodyWriter;
+
+    public LocaleStatisticsTask(final Iterable<LocaleViewRenderer> renderers,
+            final ViewMessageBodyWriter viewMessageBodyWriter) {
+        super("locale-stats");
+        this.renderers = renderers;
+        this.viewMessageBodyWriter = viewMessageBodyWriter;
+    }
+
+    @Override
+    public void execute(final ImmutableMultimap<String, String> parameters, final PrintWriter output)
+            throws Exception {
+        for (LocaleViewRenderer renderer : renderers) {
+            output.printf("%s%n", renderer.getSuffix());
+            for (Map.Entry<String, Long> cache : renderer.getCacheSizes().entrySet()) {
+                output.printf("  cache %-16s %8d entries%n", cache.getKey(), cache.getValue());
+            }
+
+            final Table<String, String, LocaleMap> localeTable = renderer.getLocaleConfiguration().getLocaleTable();
+            long totalKeys = 0;
+            long totalBytes = 0;
+            for (Map.Entry<String, Map<String, LocaleMap>> language : localeTable.rowMap().entrySet()) {
+                long languageKeys = 0;
+                long languageBytes = 0;
+                for (Map.Entry<String, LocaleMap> bundle : language.getValue().entrySet()) {
+                    final long bytes = LocaleConfigurationUtility.estimateRetainedBytes(bundle.getValue());
+                    output.printf("  locale %-5s bundle %-24s %8d keys %12d bytes%n", language.getKey(),
+                            bundle.getKey(), bundle.getValue().size(), bytes);
+                    languageKeys += bundle.getValue().size();
+                    languageBytes += bytes;
+                }
+                output.printf("  locale %-5s total  %-24s %8d keys %12d bytes%n", language.getKey(), "",
+                        languageKeys, languageBytes);
+                totalKeys += languageKeys;
+                totalBytes += languageBytes;
+            }
+            output.printf("  catalog total %8d keys %12d bytes%n", totalKeys, totalBytes);
+        }
+        output.printf("views: %d precompressed entries%n", viewMessageBodyWriter.getCacheSize());
+        output.flush();
+    }
+}
@@ -0,0 +1,57 @@
+package io.timparsons.dropwizard.views.tasks;
+
+import java.util.Locale;
+
+import com.google.common.collect.ImmutableMultimap;
+
+import io.timparsons.dropwizard.views.LocaleViewRenderer;
+import io.timparsons.dropwizard.views.writer.ViewMessageBodyWriter;
+
+final class LocaleTasks {
+
+    private LocaleTasks() {
+    }
+
+    static String getParameter(final ImmutableMultimap<String, String> parameters, final String name) {
+        return parameters.get(name).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * @return the language of the {@code locale} parameter, as the catalog is
+     *         keyed by language, or {@code null} if it isn't given
+     * @throws IllegalArgumentException
+     *             if the parameter isn't a language tag with a language, e.g.
+     *             {@code de_DE} instead of {@code de-DE}
+     */
+    static String getLanguage(final ImmutableMultimap<String, String> parameters) {
+        final String locale = getParameter(parameters, "locale");
+        if (locale == null) {
+            return null;
+        }
+        final String language = Locale.forLanguageTag(locale).getLanguage();
+        if (language.isEmpty()) {
+            throw new IllegalArgumentException("Invalid locale " + locale + ", expected a language tag such as de-DE");
+        }
+        return language;
+    }
+
+    static String describe(final String value) {
+        return value == null ? "*" : value;
+    }
+
+    /**
+     * Drops the precompressed output of a language, or all of it if that is
+     * the default language every other locale falls back to.
+     */
+    static void invalidateViews(final Iterable<LocaleViewRenderer> renderers,
+            final ViewMessageBodyWriter viewMessageBodyWriter, final String language) {
+        String invalidated = language;
+        for (LocaleViewRenderer renderer : renderers) {
+            if (language != null
+                    && language.equals(renderer.getLocaleConfiguration().getDefaultLocale().getLanguage())) {
+                invalidated = null;
+            }
+        }
+        viewMessageBodyWriter.invalidate(invalidated);
+    }
+}
@@ -0,0 +1,43 @@
+package io.timparsons.dropwizard.views.tasks;
+
+import java.io.PrintWriter;
+
+import com.google.common.collect.ImmutableMultimap;
+
+import io.dropwizard.servlets.tasks.Task;
+import io.timparsons.dropwizard.views.LocaleViewRenderer;
+import io.timparsons.dropwizard.views.writer.ViewMessageBodyWriter;
+
+/**
+ * Re-reads part of the catalog from disk and re-warms the views built from it.
+ * <p>
+ * {@code POST /tasks/locale-reload?locale=de&bundle=messages}; both parameters
+ * are optional and default to everything.
+ */
+public class ReloadLocaleTask extends Task {
+    private final Iterable<LocaleViewRenderer> renderers;
+    private final ViewMessageBodyWriter viewMessageBodyWriter;
+
+    public ReloadLocaleTask(final Iterable<LocaleViewRenderer> renderers,
+            final ViewMessageBodyWriter viewMessageBodyWriter) {
+        super("locale-reload");
+        this.renderers = renderers;
+        this.viewMessageBodyWriter = viewMessageBodyWriter;
+    }
+
+    @Override
+    public void execute(final ImmutableMultimap<String, String> parameters, final PrintWriter output)
+            throws Exception {
+        final String language = LocaleTasks.getLanguage(parameters);
+        final String bundle = LocaleTasks.getParameter(parameters, "bundle");
+
+        for (LocaleViewRenderer renderer : renderers) {
+            renderer.reloadLocale(language, bundle);
+            output.printf("%s: reloaded locale=%s bundle=%s%n", renderer.getSuffix(),
+                    LocaleTasks.describe(language), LocaleTasks.describe(bundle));
+        }
+        // reloadLocale returns once the new bundles are in place, so views rendered from here on use them
+        LocaleTasks.invalidateViews(renderers, viewMessageBodyWriter, language);
+        output.flush();
+    }
+}
@@ -0,0 +1,76 @@
+package io.timparsons.dropwizard.views.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * Content-coding helpers shared by the responses that are kept precompressed.
+ */
+public final class ContentEncodings {
+    public static final String GZIP = "gzip";
+
+    private ContentEncodings() {
+    }
+
+    /**
+     * @return the gzip-compressed copy of {@code identity}, or {@code null} when
+     *         compressing doesn't make it smaller
+     */
+    public static byte[] gzip(final byte[] identity) throws IOException {
+        final ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzip)) {
+            gzipStream.write(identity);
+        }
+
+        // tiny bodies can grow when compressed, only keep the gzip copy if it pays off
+        return gzip.size() < identity.length ? gzip.toByteArray() : null;
+    }
+
+    /**
+     * @return whether {@code Accept-Encoding} allows gzip, by its own entry
+     *         when it has one and otherwise by {@code *} (RFC 7231 section
+     *         5.3.4)
+     */
+    public static boolean acceptsGzip(final HttpHeaders headers) {
+        final List<String> acceptEncodings = headers.getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncodings == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        Boolean any = null;
+        for (String acceptEncoding : acceptEncodings) {
+            for (String coding : acceptEncoding.split(",")) {
+                final String[] parts = coding.trim().split(";");
+                final String name = parts[0].trim();
+                // a coding listed twice is refused if either entry refuses it
+                if (name.equalsIgnoreCase(GZIP)) {
+                    gzip = !hasZeroQuality(parts) && (gzip == null || gzip);
+                } else if (name.equals("*")) {
+                    any = !hasZeroQuality(parts) && (any == null || any);
+                }
+            }
+        }
+        if (gzip != null) {
+            return gzip;
+        }
+        return any != null && any;
+    }
+
+    private static boolean hasZeroQuality(final String[] codingParts) {
+        for (int i = 1; i < codingParts.length; i++) {
+            final String param = codingParts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,41 @@
+package io.timparsons.dropwizard.views.writer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Forwards flushes of the template writer to the entity stream. Jersey only
+ * commits the response and sends what has been rendered so far on a flush
+ * once its outbound buffer is exceeded, which
+ * {@link io.timparsons.dropwizard.views.bundle.LocaleViewBundle} can turn
+ * off. Flushes without new output since the previous one are dropped so
+ * the encoders' and template engines' own flushes don't produce empty chunks.
+ */
+class FlushPointOutputStream extends FilterOutputStream {
+    private boolean pending = false;
+
+    FlushPointOutputStream(final OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        out.write(b);
+        pending = true;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+        pending = len > 0 || pending;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (pending) {
+            out.flush();
+            pending = false;
+        }
+    }
+}
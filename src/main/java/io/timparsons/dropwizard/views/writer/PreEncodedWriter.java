@@ -0,0 +1,157 @@
+package io.timparsons.dropwizard.views.writer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A {@link Writer} that writes the literal text blocks of compiled templates
+ * as bytes that were encoded the first time the block was written. Blocks are
+ * registered with a {@link SegmentCache} when their template is loaded, and
+ * recognized by identity when they are handed to the writer in one piece;
+ * everything else is encoded on the fly, like an {@link OutputStreamWriter}
+ * would.
+ */
+public class PreEncodedWriter extends Writer {
+    private static final int MIN_SEGMENT_LENGTH = 64;
+
+    private final OutputStream output;
+    private final Writer encoder;
+    private final SegmentCache segments;
+    private final Charset charset;
+    private boolean pendingHighSurrogate = false;
+
+    /**
+     * The literal text blocks of loaded templates, held weakly so they go away
+     * together with the compiled template that owns them.
+     */
+    public static class SegmentCache {
+        private final Cache<Object, ConcurrentMap<Charset, byte[]>> segments = CacheBuilder.newBuilder()
+                .concurrencyLevel(128).weakKeys().build();
+
+        /**
+         * Registers a {@code String} or {@code char[]} that a template writes
+         * as literal text. Character arrays must never be modified afterwards.
+         */
+        public void register(final Object segment) {
+            final CharSequence text = asText(segment);
+            // a split surrogate pair can't be encoded on its own
+            if (text.length() >= MIN_SEGMENT_LENGTH && !Character.isLowSurrogate(text.charAt(0))
+                    && !Character.isHighSurrogate(text.charAt(text.length() - 1))) {
+                segments.asMap().putIfAbsent(segment, new ConcurrentHashMap<>());
+            }
+        }
+
+        public void clear() {
+            segments.invalidateAll();
+        }
+
+        byte[] getEncoded(final Object segment, final Charset charset) {
+            final ConcurrentMap<Charset, byte[]> encoded = segments.getIfPresent(segment);
+            if (encoded == null) {
+                return null;
+            }
+            return encoded.computeIfAbsent(charset, key -> asText(segment).toString().getBytes(key));
+        }
+
+        private static CharSequence asText(final Object segment) {
+            if (segment instanceof char[]) {
+                return new String((char[]) segment);
+            }
+            return (String) segment;
+        }
+    }
+
+    /**
+     * Keeps the encoder from flushing the entity stream every time pending
+     * characters have to be pushed out ahead of a pre-encoded segment.
+     */
+    private static class NonFlushingOutputStream extends FilterOutputStream {
+        NonFlushingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // flushed explicitly by PreEncodedWriter
+        }
+    }
+
+    public PreEncodedWriter(final OutputStream output, final Charset charset, final SegmentCache segmentCache) {
+        this.output = output;
+        this.charset = charset;
+        this.encoder = new OutputStreamWriter(new NonFlushingOutputStream(output), charset);
+        this.segments = segmentCache;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        if (off == 0 && len == cbuf.length && len >= MIN_SEGMENT_LENGTH && writeSegment(cbuf)) {
+            return;
+        }
+        encoder.write(cbuf, off, len);
+        if (len > 0) {
+            pendingHighSurrogate = Character.isHighSurrogate(cbuf[off + len - 1]);
+        }
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        if (off == 0 && len == str.length() && len >= MIN_SEGMENT_LENGTH && writeSegment(str)) {
+            return;
+        }
+        encoder.write(str, off, len);
+        if (len > 0) {
+            pendingHighSurrogate = Character.isHighSurrogate(str.charAt(off + len - 1));
+        }
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        encoder.write(c);
+        pendingHighSurrogate = Character.isHighSurrogate((char) c);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encoder.flush();
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        encoder.close();
+    }
+
+    /**
+     * @return whether the segment was registered and has been written
+     */
+    private boolean writeSegment(final Object segment) throws IOException {
+        // the encoder keeps a trailing high surrogate until its pair arrives,
+        // bytes written around it would end up ahead of it
+        if (pendingHighSurrogate) {
+            return false;
+        }
+        final byte[] bytes = segments.getEncoded(segment, charset);
+        if (bytes == null) {
+            return false;
+        }
+        // push out anything still pending in the encoder so ordering is kept
+        encoder.flush();
+        output.write(bytes);
+        return true;
+    }
+}
@@ -2,6 +2,7 @@ package io.timparsons.dropwizard.views.writer;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
@@ -18,12 +19,19 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
+
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import io.dropwizard.views.View;
 import io.dropwizard.views.ViewRenderException;
 import io.dropwizard.views.ViewRenderer;
+import io.timparsons.dropwizard.views.LocaleViewRenderer;
+import io.timparsons.dropwizard.views.config.Precompressed;
 
 @Provider
 @Produces({ MediaType.TEXT_HTML, MediaType.APPLICATION_XHTML_XML })
@@ -31,11 +39,40 @@ public class ViewMessageBodyWriter implements MessageBodyWriter<View> {
     public static final String TEMPLATE_ERROR_MSG = "<html>" + "<head><title>Template Error</title></head>"
             + "<body><h1>Template Error</h1><p>Something went wrong rendering the page</p></body>" + "</html>";
 
+    private static final long MAX_PRECOMPRESSED_VIEWS = 1024L;
+
     @Context
     private HttpHeaders headers;
 
     private final Iterable<ViewRenderer> renderers;
     private final MetricRegistry metricRegistry;
+    private final Cache<Triple<Class<?>, String, Locale>, RenderedView> precompressedCache;
+
+    private static final Object[] NO_VERSION = new Object[0];
+
+    private static final class RenderedView {
+        private final Object[] version;
+        private final byte[] identity;
+        private final byte[] gzip;
+
+        RenderedView(final Object[] version, final byte[] identity, final byte[] gzip) {
+            this.version = version;
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+        boolean isVersion(final Object[] current) {
+            if (version.length != current.length) {
+                return false;
+            }
+            for (int i = 0; i < version.length; i++) {
+                if (version[i] != current[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 
     @Deprecated
     public ViewMessageBodyWriter(final MetricRegistry metricRegistry) {
@@ -45,6 +82,8 @@ public class ViewMessageBodyWriter implements MessageBodyWriter<View> {
     public ViewMessageBodyWriter(final MetricRegistry metricRegistry, final Iterable<ViewRenderer> viewRenderers) {
         this.metricRegistry = metricRegistry;
         this.renderers = viewRenderers;
+        this.precompressedCache = CacheBuilder.newBuilder().concurrencyLevel(128)
+                .maximumSize(MAX_PRECOMPRESSED_VIEWS).build();
     }
 
     @Override
@@ -65,18 +104,92 @@ public class ViewMessageBodyWriter implements MessageBodyWriter<View> {
             final OutputStream entityStream) throws IOException {
         final Timer.Context context = metricRegistry.timer(name(t.getClass(), "rendering")).time();
         try {
-            for (ViewRenderer renderer : renderers) {
-                if (renderer.isRenderable(t)) {
-                    renderer.render(t, detectLocale(headers), entityStream);
-                    return;
-                }
+            final ViewRenderer renderer = findRenderer(t);
+            final Locale locale = detectLocale(headers);
+            if (t.getClass().isAnnotationPresent(Precompressed.class)) {
+                writePrecompressed(renderer, t, locale, httpHeaders, entityStream);
+            } else {
+                // lets <#flush> and {{%FLUSH}} send the page rendered so far to the client
+                renderer.render(t, locale, new FlushPointOutputStream(entityStream));
             }
-            throw new ViewRenderException("Unable to find a renderer for " + t.getTemplateName());
         } finally {
             context.stop();
         }
     }
 
+    public void clearCache() {
+        precompressedCache.invalidateAll();
+    }
+
+    /**
+     * Drops the precompressed output rendered for a language.
+     * 
+     * @param language
+     *            the language to drop, or {@code null} for all of them
+     */
+    public void invalidate(final String language) {
+        if (language == null) {
+            clearCache();
+            return;
+        }
+        precompressedCache.asMap().keySet().removeIf(key -> language.equals(key.getRight().getLanguage()));
+    }
+
+    public long getCacheSize() {
+        return precompressedCache.size();
+    }
+
+    private ViewRenderer findRenderer(final View view) throws ViewRenderException {
+        for (ViewRenderer renderer : renderers) {
+            if (renderer.isRenderable(view)) {
+                return renderer;
+            }
+        }
+        throw new ViewRenderException("Unable to find a renderer for " + view.getTemplateName());
+    }
+
+    private void writePrecompressed(final ViewRenderer renderer, final View view, final Locale locale,
+            final MultivaluedMap<String, Object> httpHeaders, final OutputStream entityStream) throws IOException {
+        final Triple<Class<?>, String, Locale> key = new ImmutableTriple<Class<?>, String, Locale>(view.getClass(),
+                view.getTemplateName(), locale);
+        // taken before rendering, so a reload during the render only makes the output stale sooner
+        final Object[] version = getRenderVersion(renderer, view, locale);
+
+        RenderedView rendered = precompressedCache.getIfPresent(key);
+        if (rendered == null || !rendered.isVersion(version)) {
+            rendered = renderAndCompress(renderer, view, locale, version);
+            precompressedCache.put(key, rendered);
+        }
+
+        httpHeaders.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        httpHeaders.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+
+        byte[] body = rendered.identity;
+        if (rendered.gzip != null && ContentEncodings.acceptsGzip(headers)) {
+            httpHeaders.putSingle(HttpHeaders.CONTENT_ENCODING, ContentEncodings.GZIP);
+            body = rendered.gzip;
+        }
+        httpHeaders.putSingle(HttpHeaders.CONTENT_LENGTH, body.length);
+        entityStream.write(body);
+    }
+
+    private Object[] getRenderVersion(final ViewRenderer renderer, final View view, final Locale locale)
+            throws IOException {
+        if (renderer instanceof LocaleViewRenderer) {
+            return ((LocaleViewRenderer) renderer).getRenderVersion(view, locale);
+        }
+        return NO_VERSION;
+    }
+
+    private RenderedView renderAndCompress(final ViewRenderer renderer, final View view, final Locale locale,
+            final Object[] version) throws IOException {
+        final ByteArrayOutputStream identity = new ByteArrayOutputStream();
+        renderer.render(view, locale, identity);
+
+        final byte[] body = identity.toByteArray();
+        return new RenderedView(version, body, ContentEncodings.gzip(body));
+    }
+
     private Locale detectLocale(final HttpHeaders headers) {
         final List<Locale> languages = headers.getAcceptableLanguages();
         for (Locale locale : languages) {